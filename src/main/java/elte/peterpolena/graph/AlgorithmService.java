@@ -2,12 +2,11 @@ package elte.peterpolena.graph;
 
 import org.jgrapht.Graph;
 import org.jgrapht.alg.connectivity.ConnectivityInspector;
-import org.jgrapht.alg.util.Pair;
 import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleDirectedWeightedGraph;
-import org.jgrapht.graph.SimpleWeightedGraph;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntFunction;
 
 import static elte.peterpolena.graph.Config.*;
 import static elte.peterpolena.graph.Utils.*;
@@ -39,6 +38,67 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
     private Set<Vertex> allOfM2 = new HashSet<>();
     private Set<Vertex> allOfM = new HashSet<>();
     private boolean allSucceeded;
+    private double bitSetDensityCutoff = Config.bitSetDensityCutoff;
+    private final Map<Graph<Vertex, DefaultWeightedEdge>, BitSetAdjacency> adjacencies = new IdentityHashMap<>();
+    private ProgressListener progressListener = ProgressListener.NONE;
+    private CancellationToken cancellationToken = new CancellationToken();
+    private StepStream stepStream;
+    private TraceWriter traceWriter;
+    private SolutionCache solutionCache;
+    private Long frontierSeed;
+    private int thresholdIndex;
+    private int thresholdCount;
+
+    public void setBitSetDensityCutoff(double bitSetDensityCutoff) {
+        this.bitSetDensityCutoff = bitSetDensityCutoff;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    //every recorded step is also published to the stream while the algorithm runs
+    public void setStepStream(StepStream stepStream) {
+        this.stepStream = stepStream;
+        result.setStepStream(stepStream);
+    }
+
+    //every recorded step is also written to the trace, the caller finishes and closes it
+    public void setTraceWriter(TraceWriter traceWriter) {
+        this.traceWriter = traceWriter;
+        result.setTraceWriter(traceWriter);
+    }
+
+    //without recording no intermediate graphs are copied into the Result
+    public void setRecording(boolean recording) {
+        result.setRecording(recording);
+    }
+
+    //solved and unsolvable outcomes are stored, stopped runs are not
+    public void setSolutionCache(SolutionCache solutionCache) {
+        this.solutionCache = solutionCache;
+    }
+
+    //Q picks a seeded random vertex instead of the oldest one, null restores the insertion order
+    public void setFrontierSeed(Long frontierSeed) {
+        this.frontierSeed = frontierSeed;
+    }
+
+    //checked at every threshold and phase boundary and inside the long running loops
+    public void cancel() {
+        cancellationToken.cancel();
+    }
+
+    public Result mainAlgorithm(Graph<Vertex, DefaultWeightedEdge> graph,
+                                int maxCenters,
+                                int maxClientsPerCenter,
+                                int maxFailedCenters,
+                                boolean isConservative,
+                                boolean withFailure,
+                                CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+        return mainAlgorithm(graph, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, withFailure);
+    }
 
     public Result mainAlgorithm(Graph<Vertex, DefaultWeightedEdge> graph,
 								int maxCenters,
@@ -50,60 +110,258 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
         System.out.println("\nSTART MAIN ALGORITHM\n");
 
         graph.vertexSet().forEach(Vertex::clearData);
-        graph.edgeSet().forEach(e -> {
-            graph.getEdgeSource(e).clearData();
-            graph.getEdgeTarget(e).clearData();
-        });
         System.out.println("\tK: " + maxCenters);
         System.out.println("\tL: " + maxClientsPerCenter);
 
+        SolutionCache.Key cacheKey = null;
+        //the failed centers are sampled again on every run with failure, so only runs without it are cached
+        if (solutionCache != null && !withFailure) {
+            cacheKey = SolutionCache.key(graph, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative);
+            Optional<SolutionCache.Entry> cached = solutionCache.get(cacheKey);
+            System.out.println("\t" + solutionCache);
+            if (cached.isPresent()) {
+                System.out.println("\nEND MAIN ALGORITHM (CACHED)\n");
+                Result restored = cached.get().restore(graph, stepStream);
+                if (restored != null && traceWriter != null) {
+                    restored.traceTo(traceWriter);
+                }
+                return restored;
+            }
+        }
+
         result.setOriginalGraph(graph);
 
-        List<Double> weights = graph
-                .edgeSet()
-                .stream()
-                .map(graph::getEdgeWeight)
-                .collect(toSet())
-                .stream()
-                .sorted()
-                .collect(toList());
+        List<Double> weights = getDistinctWeights(graph);
 
         System.out.println("\tWeights: " + weights.size());
 
-        List<Graph<Vertex, DefaultWeightedEdge>> subGraphs = new ArrayList<>();
-        weights.forEach(weight -> {
-            Graph<Vertex, DefaultWeightedEdge> subGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
-            graph.vertexSet().forEach(subGraph::addVertex);
-            addEdgesUpToMaxWeightToSubGraph(graph, subGraph, weight);
-            subGraphs.add(subGraph);
-        });
+        return solveFromThreshold(graph, weights, 0, null, cacheKey, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, withFailure);
+    }
 
-        System.out.println("\tSubGraphs: " + subGraphs.size());
-
-        for (Graph<Vertex, DefaultWeightedEdge> subGraph : subGraphs) {
-            result.addGraphToDraw("[MAIN] Subgraph", subGraph);
-            if (assignCentersAlgorithm(subGraph, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative)) {
-				result.addGraphToDraw("[MAIN] Result of main algorithm", graph);
-				if (withFailure) {
-					Set<Vertex> failedCenters = new HashSet<>(shuffleAndReduceToSize(new ArrayList<>(getCenters(graph)), maxFailedCenters));
-					showFailedCenters(graph, failedCenters);
-					if (isConservative) {
-                        conservativeReAssignByFailedAlgorithm(subGraph, failedCenters, maxClientsPerCenter);
-					} else {
-						nonConservativeReAssignByFailedAlgorithm(subGraph, failedCenters, maxClientsPerCenter);
-					}
-					result.addGraphToDraw("[MAIN] Final result after reassigning failed centers", graph);
-				}
-				System.out.println("\nEND MAIN ALGORITHM\n");
-                return result;
+    /*
+    Entry point of ParameterSweep: the distinct weights are shared and the thresholds below firstThresholdIndex are known to have Kw > K.
+    thresholdComponents gives the connected components of Gw by threshold index, computed once per sweep (vertices equal by id).
+    Gw itself is built for the graph, its vertices carry the state of this solve.
+     */
+    Result mainAlgorithm(Graph<Vertex, DefaultWeightedEdge> graph,
+                         List<Double> weights,
+                         int firstThresholdIndex,
+                         IntFunction<List<Set<Vertex>>> thresholdComponents,
+                         int maxCenters,
+                         int maxClientsPerCenter,
+                         int maxFailedCenters,
+                         boolean isConservative,
+                         boolean withFailure) {
+
+        System.out.println("\nSTART MAIN ALGORITHM\n");
+
+        graph.vertexSet().forEach(Vertex::clearData);
+        result.setOriginalGraph(graph);
+        return solveFromThreshold(graph, weights, firstThresholdIndex, thresholdComponents, null, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, withFailure);
+    }
+
+    private Result solveFromThreshold(Graph<Vertex, DefaultWeightedEdge> graph,
+                                      List<Double> weights,
+                                      int firstThresholdIndex,
+                                      IntFunction<List<Set<Vertex>>> thresholdComponents,
+                                      SolutionCache.Key cacheKey,
+                                      int maxCenters,
+                                      int maxClientsPerCenter,
+                                      int maxFailedCenters,
+                                      boolean isConservative,
+                                      boolean withFailure) {
+
+        thresholdCount = weights.size();
+        try {
+            //Gw is built only when it is reached, a DenseWeightedGraph yields a filtered view instead of a copy
+            for (thresholdIndex = firstThresholdIndex; thresholdIndex < thresholdCount; ++thresholdIndex) {
+                enterPhase("[MAIN] Subgraph");
+                result.setThreshold(weights.get(thresholdIndex));
+                Graph<Vertex, DefaultWeightedEdge> subGraph = getThresholdSubGraph(graph, weights.get(thresholdIndex));
+                result.addGraphToDraw("[MAIN] Subgraph", subGraph);
+                List<Set<Vertex>> knownComponents = thresholdComponents == null ? null : thresholdComponents.apply(thresholdIndex);
+                if (assignCentersAlgorithm(subGraph, knownComponents, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative)) {
+                    result.addGraphToDraw("[MAIN] Result of main algorithm", graph);
+                    if (withFailure) {
+                        enterPhase("[MAIN] Failed centers");
+                        Set<Vertex> failedCenters = new HashSet<>(shuffleAndReduceToSize(new ArrayList<>(getCenters(graph)), maxFailedCenters));
+                        showFailedCenters(graph, failedCenters);
+                        if (isConservative) {
+                            conservativeReAssignByFailedAlgorithm(subGraph, failedCenters, maxClientsPerCenter);
+                        } else {
+                            nonConservativeReAssignByFailedAlgorithm(subGraph, failedCenters, maxClientsPerCenter);
+                        }
+                        result.addGraphToDraw("[MAIN] Final result after reassigning failed centers", graph);
+                    }
+                    System.out.println("\nEND MAIN ALGORITHM\n");
+                    return remember(cacheKey, graph, result);
+                }
             }
+        } catch (CancellationException e) {
+            //the steps recorded so far and the current assignment are the best known state
+            System.out.println("\t" + e.getMessage());
+            result.setStatus(cancellationToken.isCancelled() ? Result.Status.CANCELLED : Result.Status.TIMED_OUT);
+            result.addGraphToDraw("[MAIN] Best known state when stopped", graph);
+            System.out.println("\nEND MAIN ALGORITHM\n");
+            return result;
         }
 
         System.out.println("\nEND MAIN ALGORITHM\n");
-        return null;
+        return remember(cacheKey, graph, null);
+    }
+
+    //the cache keeps the Result, the caller gets a copy of its own
+    private Result remember(SolutionCache.Key cacheKey, Graph<Vertex, DefaultWeightedEdge> graph, Result result) {
+        if (cacheKey == null) {
+            return result;
+        }
+        solutionCache.put(cacheKey, graph, result);
+        return result == null ? null : result.copy();
+    }
+
+    /*
+    Dynamic mode: the graph still carries the assignment of the previous solution (withFailure = false),
+    the delta is applied to it and only the connected components of Gw containing touched vertices are solved again.
+    Falls back to mainAlgorithm when the threshold or the Kw <= K feasibility may have changed,
+    judged against the Kw of the lower thresholds recorded in the previous Result (see lowerThresholdBounds).
+     */
+    public Result reSolve(Graph<Vertex, DefaultWeightedEdge> graph,
+                          GraphDelta delta,
+                          Result previous,
+                          int maxCenters,
+                          int maxClientsPerCenter,
+                          int maxFailedCenters,
+                          boolean isConservative) {
+
+        System.out.println("\nSTART DYNAMIC RE-SOLVE\n");
+        System.out.println("\t" + delta);
+
+        boolean recording = result.isRecording();
+        result = new Result();
+        result.setRecording(recording);
+        result.setStepStream(stepStream);
+        result.setTraceWriter(traceWriter);
+
+        if (previous == null || previous.getStatus() != Result.Status.SOLVED) {
+            System.out.println("\tNo previous solution, full recompute");
+            graph.vertexSet().forEach(Vertex::clearData);
+            delta.applyTo(graph, Double.NEGATIVE_INFINITY);
+            return mainAlgorithm(graph, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, false);
+        }
+
+        double threshold = previous.getThreshold();
+        Set<Vertex> touched = delta.applyTo(graph, threshold);
+        List<Double> weights = getDistinctWeights(graph);
+        System.out.println("\tTouched vertices: " + touched.size());
+
+        Map<Double, Integer> lowerBounds = weights.contains(threshold) ? lowerThresholdBounds(graph, weights, threshold, delta, previous, maxCenters, maxClientsPerCenter) : null;
+        if (lowerBounds == null) {
+            System.out.println("\tThreshold may have changed, full recompute");
+            return mainAlgorithm(graph, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, false);
+        }
+
+        Graph<Vertex, DefaultWeightedEdge> subGraph = getThresholdSubGraph(graph, threshold);
+        List<Set<Vertex>> connectedComponents = new ConnectivityInspector<>(subGraph).connectedSets();
+        int requiredCenters = getRequiredCenters(getRequiredCentersPerComponent(maxClientsPerCenter, getComponentNodeCount(connectedComponents)));
+        System.out.println("\tKw: " + requiredCenters);
+        if (requiredCenters > maxCenters) {
+            System.out.println("\tKw > K at the previous threshold, full recompute");
+            return mainAlgorithm(graph, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, false);
+        }
+
+        List<Graph<Vertex, DefaultWeightedEdge>> affectedComponents = connectedComponents
+                .stream()
+                .filter(component -> !Collections.disjoint(component, touched))
+                .map(component -> getSubGraph(subGraph, component))
+                .collect(toList());
+        System.out.println("\tAffected connected components: " + affectedComponents.size() + " of " + connectedComponents.size());
+
+        result.setOriginalGraph(graph);
+        result.setThreshold(threshold);
+        lowerBounds.forEach(result::setRequiredCentersLowerBound);
+        result.setRequiredCentersLowerBound(threshold, requiredCenters);
+        thresholdIndex = 0;
+        thresholdCount = 1;
+        try {
+            result.addGraphToDraw("[DYNAMIC] Subgraph", subGraph);
+            adjacencies.clear();
+            allSucceeded = true;
+            affectedComponents.forEach(cc -> {
+                cc.vertexSet().forEach(Vertex::clearData);
+                if (BitSetAdjacency.density(cc) >= bitSetDensityCutoff) {
+                    adjacencies.put(cc, BitSetAdjacency.of(cc));
+                }
+                enterPhase("[DYNAMIC] Affected connected component");
+                result.addGraphToDraw("[DYNAMIC] Affected connected component", cc);
+                if (isConservative) {
+                    allSucceeded = allSucceeded && callConservativeAlgorithms(cc, maxCenters, maxClientsPerCenter, maxFailedCenters);
+                } else {
+                    callNonConservativeAlgorithms(cc, maxClientsPerCenter, maxFailedCenters);
+                }
+            });
+        } catch (CancellationException e) {
+            System.out.println("\t" + e.getMessage());
+            result.setStatus(cancellationToken.isCancelled() ? Result.Status.CANCELLED : Result.Status.TIMED_OUT);
+            result.addGraphToDraw("[DYNAMIC] Best known state when stopped", graph);
+            System.out.println("\nEND DYNAMIC RE-SOLVE\n");
+            return result;
+        }
+
+        long centers = getCentersCount(graph);
+        System.out.println("\tAllocated centers: " + centers);
+        if (!allSucceeded || centers > maxCenters) {
+            System.out.println("\tAffected components need more centers, full recompute");
+            return mainAlgorithm(graph, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, false);
+        }
+
+        result.addGraphToDraw("[DYNAMIC] Result of main algorithm", graph);
+        System.out.println("\nEND DYNAMIC RE-SOLVE\n");
+        return result;
     }
 
+    /*
+    Kw lower bounds of the thresholds below the previous one after the delta, null if one of them may pass now.
+    Every threshold below the previous one failed, with the Kw recorded in the previous Result:
+    - Kw > K: Kw drops by at most delta.maxRequiredCentersDecrease, Gw is only built again if that could reach K
+    - Kw <= K (the assignment failed): it may pass only if the delta eased its Gw
+    A threshold the previous Result does not know (a new weight, or one skipped by ParameterSweep) has its Kw computed.
+     */
+    private Map<Double, Integer> lowerThresholdBounds(Graph<Vertex, DefaultWeightedEdge> graph,
+                                                      List<Double> weights,
+                                                      double threshold,
+                                                      GraphDelta delta,
+                                                      Result previous,
+                                                      int maxCenters,
+                                                      int maxClientsPerCenter) {
+        Map<Double, Integer> bounds = new HashMap<>();
+        for (double weight : weights) {
+            if (weight >= threshold) {
+                break;
+            }
+            Integer known = previous.getRequiredCentersLowerBound(weight);
+            if (known != null && known <= maxCenters) {
+                if (delta.mayEase(weight)) {
+                    return null;
+                }
+                bounds.put(weight, known);
+                continue;
+            }
+            int bound = known == null ? 0 : known - delta.maxRequiredCentersDecrease(weight);
+            if (bound <= maxCenters) {
+                List<Set<Vertex>> connectedComponents = new ConnectivityInspector<>(getThresholdSubGraph(graph, weight)).connectedSets();
+                bound = getRequiredCenters(getRequiredCentersPerComponent(maxClientsPerCenter, getComponentNodeCount(connectedComponents)));
+                if (bound <= maxCenters) {
+                    return null;
+                }
+            }
+            bounds.put(weight, bound);
+        }
+        return bounds;
+    }
+
+	//knownComponents: the connected components of subGraph if already known, vertices equal by id
 	private boolean assignCentersAlgorithm(Graph<Vertex, DefaultWeightedEdge> subGraph,
+										   List<Set<Vertex>> knownComponents,
 										   int maxCenters,
 										   int maxClientsPerCenter,
 										   int maxFailedCenters,
@@ -115,22 +373,24 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
         allOfM1.clear();
         allOfM2.clear();
 		subGraph.vertexSet().forEach(Vertex::clearData);
-        subGraph.edgeSet().forEach(e -> {
-            subGraph.getEdgeSource(e).clearData();
-            subGraph.getEdgeTarget(e).clearData();
-        });
-		ConnectivityInspector<Vertex, DefaultWeightedEdge> connectivityInspector = new ConnectivityInspector<>(subGraph);
+        List<Set<Vertex>> connectedComponents = new ArrayList<>();
+        if (knownComponents == null) {
+            ConnectivityInspector<Vertex, DefaultWeightedEdge> connectivityInspector = new ConnectivityInspector<>(subGraph);
 
-        List<Set<Vertex>> connectedComponentsBad = connectivityInspector.connectedSets();
+            List<Set<Vertex>> connectedComponentsBad = connectivityInspector.connectedSets();
 
-        List<Set<Vertex>> connectedComponents = new ArrayList<>();
-        connectedComponentsBad.forEach(x -> {
-            Set<Vertex> newSet = new HashSet<>();
-            x.forEach(edge -> {
-                newSet.add(subGraph.vertexSet().stream().filter(y -> y.equals(edge)).findAny().get());
+            connectedComponentsBad.forEach(x -> {
+                Set<Vertex> newSet = new HashSet<>();
+                x.forEach(edge -> {
+                    newSet.add(subGraph.vertexSet().stream().filter(y -> y.equals(edge)).findAny().get());
+                });
+                connectedComponents.add(newSet);
             });
-            connectedComponents.add(newSet);
-        });
+        } else {
+            Map<Vertex, Vertex> instances = new HashMap<>();
+            subGraph.vertexSet().forEach(vertex -> instances.put(vertex, vertex));
+            knownComponents.forEach(component -> connectedComponents.add(component.stream().map(instances::get).collect(toSet())));
+        }
 
         List<Integer> componentNodeCount = getComponentNodeCount(connectedComponents);
 
@@ -140,6 +400,7 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
 
         System.out.println("\tKw: " + requiredCenters);
 		System.out.println("\tKw > K: " + (requiredCenters > maxCenters));
+        result.setRequiredCentersLowerBound(result.getThreshold(), requiredCenters);
         if (requiredCenters > maxCenters) {
             return false;
         }
@@ -152,14 +413,25 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
 
 		System.out.println("\tSubGraph connected components: " + connectedComponentSet.size());
 
+        //dense components get a bitset adjacency, so Γi, Ni and the marked filtering become word-parallel
+        adjacencies.clear();
+        connectedComponentSet.forEach(cc -> {
+            if (BitSetAdjacency.density(cc) >= bitSetDensityCutoff) {
+                adjacencies.put(cc, BitSetAdjacency.of(cc));
+            }
+        });
+        System.out.println("\tConnected components with bitset adjacency: " + adjacencies.size());
+
         allSucceeded = true;
         if (isConservative) {
             connectedComponentSet.forEach(cc -> {
+                enterPhase("[ASSIGN CENTERS] Connected Component");
                 result.addGraphToDraw("[ASSIGN CENTERS] Connected Component", cc);
                 allSucceeded = allSucceeded && callConservativeAlgorithms(cc, maxCenters, maxClientsPerCenter, maxFailedCenters);
             });
         } else {
             connectedComponentSet.forEach(cc -> {
+                enterPhase("[ASSIGN CENTERS] Connected Component");
                 result.addGraphToDraw("[ASSIGN CENTERS] Connected Component", cc);
                 callNonConservativeAlgorithms(cc, maxClientsPerCenter, maxFailedCenters);
             });
@@ -184,8 +456,11 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
         m1.clear();
         m2.clear();
         m.clear();
+		enterPhase("[SELECT MONARCHS]");
 		nonConservativeSelectMonarchsAlgorithm(connectedComponent, maxFailedCenters);
+		enterPhase("[ASSIGN DOMAINS]");
 		nonConservativeAssignDomainsAlgorithm(connectedComponent, maxClientsPerCenter);
+		enterPhase("[RE-ASSIGN DOMAINS]");
         boolean succeededToProduceEnoughCeners = nonConservativeReAssignAlgorithm(connectedComponent, maxClientsPerCenter, maxFailedCenters);
         //nonConservativeReAssignByFailedAlgorithm(subGraph);
 		System.out.println("\tNumber of centers in connected component at the end of iteration: " + getCentersCount(connectedComponent));
@@ -201,9 +476,12 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
         m1.clear();
         m2.clear();
         m.clear();
+        enterPhase("[SELECT MONARCHS]");
         if (!conservativeSelectMonarchsAlgorithm(subGraph, maxFailedCenters))
             return false;
+        enterPhase("[ASSIGN DOMAINS]");
         conservativeAssignDomainsAlgorithm(subGraph, maxClientsPerCenter);
+        enterPhase("[RE-ASSIGN DOMAINS]");
         conservativeReAssignAlgorithm(subGraph, maxClientsPerCenter);
         return true;
     }
@@ -212,25 +490,23 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
 
         System.out.println("\nSTART SELECT MONARCHS ALGORITHM\n");
 
-        List<Vertex> unmarkedNodes = new ArrayList<>();
+        Frontier unmarkedNodes = newFrontier();
         List<Vertex> vertices = new ArrayList<>(subGraph.vertexSet());
         unmarkedNodes.add(vertices.stream().findAny().get());
         while (!unmarkedNodes.isEmpty()) {
-            Vertex vertex = unmarkedNodes.stream().findAny().get();
-            unmarkedNodes.remove(vertex);
+            cancellationToken.check("[SELECT MONARCHS]");
+            Vertex vertex = unmarkedNodes.poll();
             vertex.setMonarch();
-            vertex.setMarked();
+            mark(subGraph, vertex);
             m1.add(vertex);
-            getAdjacentVerticesUpToDistance(subGraph, vertex, 2).forEach(adjacentVertex -> {
-                if (!adjacentVertex.isMarked()) {
-                    adjacentVertex.setMarked();
-                    vertex.addToEmpire(adjacentVertex);
-                }
+            getUnmarkedVerticesUpToDistance(subGraph, vertex, 2).forEach(adjacentVertex -> {
+                mark(subGraph, adjacentVertex);
+                vertex.addToEmpire(adjacentVertex);
             });
-            intersection(vertex.getEmpire(), getAdjacentVerticesAtDistance(subGraph, vertex, 2))
+            getEmpireAtDistance(subGraph, vertex, 2)
                     .forEach(u ->
-                            getAdjacentVerticesAtDistance(subGraph, u, 1).forEach(w -> {
-                                if (!w.isMarked() && !unmarkedNodes.contains(w)) {
+                            getUnmarkedVerticesAtDistance(subGraph, u, 1).forEach(w -> {
+                                if (!unmarkedNodes.contains(w)) {
                                     w.setParent(vertex);
                                     w.setDeputy(u);
                                     unmarkedNodes.add(w);
@@ -242,7 +518,7 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
 
         m1.forEach(major -> {
             List<Vertex> minors = shuffleAndReduceToSize(
-                    getAdjacentVerticesAtDistance(subGraph, major, 1)
+                    getVerticesAtDistance(subGraph, major, 1)
                             .stream()
                             .filter(vertex -> !vertex.equals(major.getDeputy()))
                             .collect(toList()),
@@ -272,66 +548,14 @@ getAdjacentVerticesAtDistance(Gw, v, i) = Ni(v)
     private void nonConservativeAssignDomainsAlgorithm(Graph<Vertex, DefaultWeightedEdge> subGraph, int maxClientsPerCenter) {
 
         System.out.println("\nSTART ASSIGN DOMAINS ALGORITHM\n");
-        System.out.println("\tConstructing bipartite graph...");
-
-        Graph<Vertex, WeightedEdgeWithCapacity> bipartiteGraph = new SimpleDirectedWeightedGraph<>(WeightedEdgeWithCapacity.class);
-
-        Map<Vertex, Vertex> vertexCopies = new HashMap<>();
-        subGraph.vertexSet().forEach(x -> {
-            vertexCopies.put(x, new Vertex((x.getX() - minXCoordinate) / 2 + minXCoordinate + (maxXCoordinate - minXCoordinate) / 2, (x.getY() - (maxYCoordinate - minYCoordinate) / 2) / 2 + (maxYCoordinate - minYCoordinate) / 2, BLACK));
-        });
-        vertexCopies.values().forEach(bipartiteGraph::addVertex);
-        //copy monarch set into bipartite graph
-        Map<Vertex, Vertex> monarchCopies = new HashMap<>();
-        m.forEach(x -> {
-            /*int diffPlacement = -50 - vertexRadius;
-            if (x.getX() > (maxXCoordinate - minXCoordinate) / 2) {
-                diffPlacement += 100 + vertexRadius;
-            }
-            monarchCopies.put(x, new Vertex(x.getX() + diffPlacement , x.getY(), GREEN));*/
-            monarchCopies.put(x, new Vertex((x.getX() - minXCoordinate) / 2 + minXCoordinate, (x.getY() - (maxYCoordinate - minYCoordinate) / 2) / 2 + (maxYCoordinate - minYCoordinate) / 2, GREEN));
-        });
-        monarchCopies.values().forEach(bipartiteGraph::addVertex);
-        //E'
-        monarchCopies.forEach((original, monarch) -> getAdjacentVerticesUpToDistance(subGraph, original.getMajor(), 2)
-                .forEach(adjacentVertex -> bipartiteGraph.addEdge(monarch, vertexCopies.get(adjacentVertex))));
-
-        //add s and t
-        Vertex source = new Vertex(minXCoordinate + 10, minYCoordinate + 10, CYAN);
-        Vertex target = new Vertex(maxXCoordinate - 10, maxYCoordinate - 10, BLUE);
-        bipartiteGraph.addVertex(source);
-        bipartiteGraph.addVertex(target);
-
-        //for m ∈ M add edge (s, m) and set (s, m) capacity to L
-        monarchCopies.values().forEach(monarch -> {
-            bipartiteGraph.addEdge(source, monarch);
-            bipartiteGraph.getEdge(source, monarch).setCapacity(maxClientsPerCenter);
-        });
-
-        //for v ∈ V add edge (v, t) and set (s, m) capacity to 1
-        vertexCopies.values().forEach(vertex -> {
-            bipartiteGraph.addEdge(vertex, target);
-            bipartiteGraph.getEdge(vertex, target).setCapacity(1);
-        });
-
-        //for m ∈ M and v ∈ V set (m, v) capacity to 1 and if m = v set (m,v) weight to 0
-        monarchCopies.forEach((original, monarch) -> vertexCopies
-                .forEach((origV, vertex) -> {
-                    if (bipartiteGraph.getEdge(monarch, vertex) != null) {
-                        bipartiteGraph.getEdge(monarch, vertex).setCapacity(1);
-                        if (original.equals(origV)) {
-                            bipartiteGraph.setEdgeWeight(monarch, vertex, 0);
-                        }
-                    }
-                }));
-
-        result.addBipartiteGraphToDraw("[ASSIGN DOMAINS] Bipartite Graph", bipartiteGraph);
-
         System.out.println("\tCalculating Minimum Cost Maximum Flow...");
         //Calculating minCostMaxFlow
-        MinCostMaxFlowService minCost = new MinCostMaxFlowService();
+        MinCostMaxFlowService minCost = new MinCostMaxFlowService(cancellationToken);
         Map<Vertex, Set<Vertex>> flow = minCost
-                .getFlow(subGraph, m, maxClientsPerCenter, true);
+                .getFlow(subGraph, adjacencies.get(subGraph), m, maxClientsPerCenter, true);
+        //the bipartite graph of the network is only built if this step is drawn
+        FlowNetwork network = minCost.getNetwork();
+        result.addBipartiteGraphToDraw("[ASSIGN DOMAINS] Bipartite Graph", network::toBipartiteGraph);
         flow.forEach((from, to) -> {
             from.setColor(RED);
             from.setClients(to);
@@ -364,6 +588,7 @@ free node => node.getColor().equals(BLACK)
         monarchTree.forEach(major -> passed.put(major, new HashSet<>()));
 
         while(!monarchTree.isEmpty()) {
+            cancellationToken.check("[RE-ASSIGN DOMAINS]");
             Vertex m = getALeaf(monarchTree);
 
             int unassignedAndPassed = unassigned.get(m).size() + passed.get(m).size();
@@ -455,23 +680,25 @@ free node => node.getColor().equals(BLACK)
         Set<Vertex> needNewHome = new HashSet<>();
         failedCenters.forEach(failed -> {
             needNewHome.addAll(failed.getClients());
-            result.addGraphToDraw("Failed center's clients", Utils.copyHighlight(subGraph, failed.getClients(), failed, YELLOW));
+            if (result.isRecording()) {
+                result.addHighlightedGraphToDraw("Failed center's clients", subGraph, failed.getClients(), failed, YELLOW);
+            }
         });
 
-        Map<Pair<Vertex, Vertex>, Vertex> X = new HashMap<>();
-
-        failedCenters.forEach(failed -> {
-            allOfM1.forEach(monarch -> {
-                Set<Vertex> team = new HashSet<>(monarch.getMinors());
-                team.add(monarch);
-                if(!team.contains(failed)) {
-                    //select a different non-faulty center r from team(m)
-                    Vertex r = team.stream().filter(x -> !failedCenters.contains(x)).findAny().orElse(null);
-                    X.put(new Pair<>(failed, monarch), r);
-                }
-            });
+        //X(f, m) = a non-faulty center of team(m), it only depends on m because the path from f's major skips team(f)
+        Map<Vertex, Vertex> X = new HashMap<>();
+        allOfM1.forEach(monarch -> {
+            Vertex r = failedCenters.contains(monarch)
+                    ? monarch.getMinors().stream().filter(x -> !failedCenters.contains(x)).findAny().orElse(null)
+                    : monarch;
+            X.put(monarch, r);
         });
 
+        //centers with a free place, kept up to date instead of scanning the vertex set for every client
+        SpareCapacityIndex spareCapacity = new SpareCapacityIndex(
+                getCenters(subGraph).stream().filter(x -> !failedCenters.contains(x)).collect(toList()),
+                maxClientsPerCenter);
+
         /*System.out.println("new home needed: " + needNewHome.size());
         subGraph.vertexSet().stream().filter(x -> x.getColor() == RED).forEach(x -> {
             System.out.println("center's fullness: " + x.getClients().size());
@@ -479,17 +706,17 @@ free node => node.getColor().equals(BLACK)
 
         //for each node v that was served by some f
         failedCenters.forEach(failed -> {
+            cancellationToken.check("[RE-ASSIGN FAILED CENTERS]");
             failed.getClients().forEach(client -> {
-                //unique free place
-                Vertex freeV = subGraph.vertexSet().stream().filter(x -> !failedCenters.contains(x)
-                    && x.getColor() == RED && x.getClients().size() < maxClientsPerCenter).findAny().get();
+                //unique free place, preferably under the failed center's own major
+                Vertex freeV = spareCapacity.find(failed.getMajor()).get();
 
                 //MP = (m1, ... mj) path in T tree from failed to freeV's major
                 List<Vertex> MP = getTreePathTo(failed.getMajor(), freeV.getMajor());
 
                 Vertex releasedNode = client;
                 for(int i = 1; i < MP.size(); i++) {
-                    Vertex currentCenter = X.get(new Pair<>(failed, MP.get(i)));
+                    Vertex currentCenter = X.get(MP.get(i));
                     Vertex currentNode = currentCenter.getClients().stream().findAny().get();
                     if (currentNode == null)
                         break;
@@ -502,6 +729,7 @@ free node => node.getColor().equals(BLACK)
                 if(releasedNode != null) {
                     freeV.getClients().add(releasedNode);
                     releasedNode.setCenter(freeV);
+                    spareCapacity.update(freeV);
                 }
 
             });
@@ -510,6 +738,9 @@ free node => node.getColor().equals(BLACK)
 
         failedCenters.forEach(x -> x.setColor(BLACK));
 
+        if (!result.isRecording()) {
+            return;
+        }
         Set<Vertex> newHomes = new HashSet<>();
         needNewHome.forEach(x -> newHomes.add(x.getCenter()));
         newHomes.forEach(newHome -> {
@@ -518,37 +749,39 @@ free node => node.getColor().equals(BLACK)
                 if (newHome.getClients().contains(x))
                     reassignedClients.add(x);
             });
-            result.addGraphToDraw("New assigned center for clients", Utils.copyHighlight(subGraph, reassignedClients, newHome, RED));
+            result.addHighlightedGraphToDraw("New assigned center for clients", subGraph, reassignedClients, newHome, RED);
         });
     }
 
     private boolean conservativeSelectMonarchsAlgorithm(Graph<Vertex, DefaultWeightedEdge> subGraph, int maxFailedCenters) {
-        List<Vertex> unmarkedNodes = new ArrayList<>();
+        Frontier unmarkedNodes = newFrontier();
         List<Vertex> vertices = new ArrayList<>(subGraph.vertexSet());
         unmarkedNodes.add(vertices.stream().findAny().get());
 
-        while (hasUnmarkedNodesFurther(subGraph, m1, 10)) {
+        //distance to the nearest major monarch, updated around every new one instead of recomputing Γ10 of all of them
+        MonarchCoverage coverage = new MonarchCoverage(subGraph, 10, frontierSeed == null ? new Random() : new Random(frontierSeed));
+        while (coverage.hasUncoveredVertices()) {
+            cancellationToken.check("[SELECT MONARCHS]");
             Vertex vertex;
             if(m1.isEmpty()) {
-                vertex = unmarkedNodes.stream().findAny().get();
+                vertex = unmarkedNodes.peek();
             }
             else {
-                vertex = getRandomVertexFromDistance(subGraph, m1, unmarkedNodes, 10);
+                vertex = coverage.getBoundaryVertex(unmarkedNodes);
             }
             m1.add(vertex); //major monarch
+            coverage.addSource(vertex);
             vertex.setMonarch();
-            vertex.setMarked();
-            getAdjacentVerticesUpToDistance(subGraph, vertex, 5).forEach(adjacentVertex -> {
-                if(!adjacentVertex.isMarked()) {
-                    vertex.addToEmpire(adjacentVertex);
-                    adjacentVertex.setMarked();
-                }
+            mark(subGraph, vertex);
+            getUnmarkedVerticesUpToDistance(subGraph, vertex, 5).forEach(adjacentVertex -> {
+                vertex.addToEmpire(adjacentVertex);
+                mark(subGraph, adjacentVertex);
             });
 
-            intersection(vertex.getEmpire(), getAdjacentVerticesAtDistance(subGraph, vertex, 5))
+            getEmpireAtDistance(subGraph, vertex, 5)
                     .forEach(u ->
-                            getAdjacentVerticesAtDistance(subGraph, vertex, 5).forEach(w -> {
-                                if (!w.isMarked() && !unmarkedNodes.contains(w)) {
+                            getUnmarkedVerticesAtDistance(subGraph, vertex, 5).forEach(w -> {
+                                if (!unmarkedNodes.contains(w)) {
                                     w.setParent(vertex);
                                     w.setDeputy(u);
                                     unmarkedNodes.add(w);
@@ -557,19 +790,19 @@ free node => node.getColor().equals(BLACK)
 
         }
         m1.forEach(m -> {
-            shuffleAndReduceToSize(getAdjacentVerticesAtDistance(subGraph, m, 1), maxFailedCenters).forEach(v -> {
+            shuffleAndReduceToSize(getVerticesAtDistance(subGraph, m, 1), maxFailedCenters).forEach(v -> {
                 m.getBackupCenters().add(v);
-                v.setMarked();
+                mark(subGraph, v);
             });
             System.out.println("\t\tMonarch with backup centers: " + m.getBackupCenters().size());
         });
 
         unmarkedNodes.clear();
         m1.forEach(m -> {
-            intersection(m.getEmpire(), getAdjacentVerticesAtDistance(subGraph, m, 5))
+            getEmpireAtDistance(subGraph, m, 5)
                 .forEach(u -> {
-                    getAdjacentVerticesAtDistance(subGraph, u, 1).forEach(neighbor -> {
-                        if(!neighbor.isMarked() && neighbor.getParent() == null && !unmarkedNodes.contains(neighbor)) {
+                    getUnmarkedVerticesAtDistance(subGraph, u, 1).forEach(neighbor -> {
+                        if(neighbor.getParent() == null && !unmarkedNodes.contains(neighbor)) {
                             neighbor.setParent(m);
                             unmarkedNodes.add(neighbor);
                             neighbor.setDeputy(u);
@@ -579,22 +812,20 @@ free node => node.getColor().equals(BLACK)
         });
 
         while (!unmarkedNodes.isEmpty()) {
-            Vertex vertex = unmarkedNodes.stream().findAny().get();
-            unmarkedNodes.remove(vertex);
+            cancellationToken.check("[SELECT MONARCHS]");
+            Vertex vertex = unmarkedNodes.poll();
             vertex.setMonarch(); //minor monarch
-            vertex.setMarked();
+            mark(subGraph, vertex);
             m2.add(vertex);
             //vertex.setParent(Parent(v))???
-            getAdjacentVerticesUpToDistance(subGraph, vertex, 5).forEach(adjacentVertex -> {
-                if (!adjacentVertex.isMarked()) {
-                    adjacentVertex.setMarked();
-                    vertex.addToEmpire(adjacentVertex);
-                }
+            getUnmarkedVerticesUpToDistance(subGraph, vertex, 5).forEach(adjacentVertex -> {
+                mark(subGraph, adjacentVertex);
+                vertex.addToEmpire(adjacentVertex);
             });
-            intersection(vertex.getEmpire(), getAdjacentVerticesAtDistance(subGraph, vertex, 5))
+            getEmpireAtDistance(subGraph, vertex, 5)
                     .forEach(u ->
-                            getAdjacentVerticesAtDistance(subGraph, u, 1).forEach(neighbor -> {
-                                if(!neighbor.isMarked() && neighbor.getParent() == null && !unmarkedNodes.contains(neighbor)) {
+                            getUnmarkedVerticesAtDistance(subGraph, u, 1).forEach(neighbor -> {
+                                if(neighbor.getParent() == null && !unmarkedNodes.contains(neighbor)) {
                                     neighbor.setParent(vertex);
                                     unmarkedNodes.add(neighbor);
                                     neighbor.setDeputy(u);
@@ -612,67 +843,14 @@ free node => node.getColor().equals(BLACK)
 
     private void conservativeAssignDomainsAlgorithm(Graph<Vertex, DefaultWeightedEdge> subGraph, int maxClientsPerCenter) {
         System.out.println("\nSTART ASSIGN DOMAINS ALGORITHM\n");
-        System.out.println("\tConstructing bipartite graph...");
-
-
-        Graph<Vertex, WeightedEdgeWithCapacity> bipartiteGraph = new SimpleDirectedWeightedGraph<>(WeightedEdgeWithCapacity.class);
-
-        Map<Vertex, Vertex> vertexCopies = new HashMap<>();
-        subGraph.vertexSet().forEach(x -> {
-            vertexCopies.put(x, new Vertex((x.getX() - minXCoordinate) / 2 + minXCoordinate + (maxXCoordinate - minXCoordinate) / 2, (x.getY() - (maxYCoordinate - minYCoordinate) / 2) / 2 + (maxYCoordinate - minYCoordinate) / 2, BLACK));
-        });
-        vertexCopies.values().forEach(bipartiteGraph::addVertex);
-        //copy monarch set into bipartite graph
-        Map<Vertex, Vertex> monarchCopies = new HashMap<>();
-        m.forEach(x -> {
-            /*int diffPlacement = -50 - vertexRadius;
-            if (x.getX() > (maxXCoordinate - minXCoordinate) / 2) {
-                diffPlacement += 100 + vertexRadius;
-            }
-            monarchCopies.put(x, new Vertex(x.getX() + diffPlacement , x.getY(), GREEN));*/
-            monarchCopies.put(x, new Vertex((x.getX() - minXCoordinate) / 2 + minXCoordinate, (x.getY() - (maxYCoordinate - minYCoordinate) / 2) / 2 + (maxYCoordinate - minYCoordinate) / 2, GREEN));
-        });
-        monarchCopies.values().forEach(bipartiteGraph::addVertex);
-        //E'
-        monarchCopies.forEach((original, monarch) -> getAdjacentVerticesUpToDistance(subGraph, original, 2)
-                .forEach(adjacentVertex -> bipartiteGraph.addEdge(monarch, vertexCopies.get(adjacentVertex))));
-
-        //add s and t
-        Vertex source = new Vertex(minXCoordinate + 10, minYCoordinate + 10, CYAN);
-        Vertex target = new Vertex(maxXCoordinate - 10, maxYCoordinate - 10, BLUE);
-        bipartiteGraph.addVertex(source);
-        bipartiteGraph.addVertex(target);
-
-        //for m ∈ M add edge (s, m) and set (s, m) capacity to L
-        monarchCopies.values().forEach(monarch -> {
-            bipartiteGraph.addEdge(source, monarch);
-            bipartiteGraph.getEdge(source, monarch).setCapacity(maxClientsPerCenter);
-        });
-
-        //for v ∈ V add edge (v, t) and set (s, m) capacity to 1
-        vertexCopies.values().forEach(vertex -> {
-            bipartiteGraph.addEdge(vertex, target);
-            bipartiteGraph.getEdge(vertex, target).setCapacity(1);
-        });
-
-        //for m ∈ M and v ∈ V set (m, v) capacity to 1 and if m = v set (m,v) weight to 0
-        monarchCopies.forEach((original, monarch) -> vertexCopies
-                .forEach((origV, vertex) -> {
-                    if (bipartiteGraph.getEdge(monarch, vertex) != null) {
-                        bipartiteGraph.getEdge(monarch, vertex).setCapacity(1);
-                        if (original.equals(origV)) {
-                            bipartiteGraph.setEdgeWeight(monarch, vertex, 0);
-                        }
-                    }
-                }));
-
-        result.addBipartiteGraphToDraw("[ASSIGN DOMAINS] Bipartite Graph", bipartiteGraph);
-
         System.out.println("\tCalculating Minimum Cost Maximum Flow...");
         //Calculating minCostMaxFlow
-        MinCostMaxFlowService minCost = new MinCostMaxFlowService();
+        MinCostMaxFlowService minCost = new MinCostMaxFlowService(cancellationToken);
         Map<Vertex, Set<Vertex>> flow = minCost
-                .getFlow(subGraph, m, maxClientsPerCenter, false);
+                .getFlow(subGraph, adjacencies.get(subGraph), m, maxClientsPerCenter, false);
+        //the bipartite graph of the network is only built if this step is drawn
+        FlowNetwork network = minCost.getNetwork();
+        result.addBipartiteGraphToDraw("[ASSIGN DOMAINS] Bipartite Graph", network::toBipartiteGraph);
         flow.forEach((from, to) -> {
             from.setColor(RED);
             from.setClients(to);
@@ -704,6 +882,7 @@ free node => node.getColor().equals(BLACK)
         subGraph.vertexSet().forEach(m -> passed.put(m, new HashSet<>()));
 
         while(!monarchTree.isEmpty()) {
+            cancellationToken.check("[RE-ASSIGN DOMAINS]");
             Vertex mon = getALeaf(monarchTree);
 
             int levelOfM = Utils.levelOfNode(mon);
@@ -807,31 +986,31 @@ free node => node.getColor().equals(BLACK)
         Set<Vertex> needNewHome = new HashSet<>();
         failedCenters.forEach(failed -> {
             needNewHome.addAll(failed.getClients());
-            result.addGraphToDraw("Failed center's clients", Utils.copyHighlight(subGraph, failed.getClients(), failed, YELLOW));
+            if (result.isRecording()) {
+                result.addHighlightedGraphToDraw("Failed center's clients", subGraph, failed.getClients(), failed, YELLOW);
+            }
         });
 
-        Set<Vertex> allBackupCenters = new HashSet<>();
-        subGraph.vertexSet().forEach(x -> allBackupCenters.addAll(x.getBackupCenters()));
+        //live backup centers per monarch and the nearest monarch with one on the parent chain, built once per repair
+        BackupCenterIndex backupCenterIndex = new BackupCenterIndex(subGraph.vertexSet(), failedCenters);
         System.out.println("new home needed: " + needNewHome.size());
-        System.out.println("backup center count: " + allBackupCenters.size());
-        subGraph.vertexSet().stream().filter(x -> x.getColor() == RED).forEach(x -> {
-            System.out.println("center's fullness: " + x.getClients().size());
-        });
+        System.out.println("live backup center count: " + backupCenterIndex.getLiveCount());
+        if (result.isRecording()) {
+            subGraph.vertexSet().stream().filter(x -> x.getColor() == RED).forEach(x -> {
+                System.out.println("center's fullness: " + x.getClients().size());
+            });
+        }
 
         failedCenters.forEach(f -> {
-            Vertex inspectedMonarch = f;
-            while (inspectedMonarch != null && inspectedMonarch.getBackupCenters().stream().filter(x -> !failedCenters.contains(x)).collect(toSet()).isEmpty()) {
-                inspectedMonarch = inspectedMonarch.getParent();
-            }
-            if (inspectedMonarch == null) {
-                inspectedMonarch = subGraph.vertexSet().stream().filter(x -> !x.getBackupCenters()
-                        .stream().filter(y -> !failedCenters.contains(y)).collect(toSet()).isEmpty()).findAny().get();
-            }
-            Vertex newCenter = inspectedMonarch.getBackupCenters().stream().filter(x -> !failedCenters.contains(x)).findAny().get();
+            cancellationToken.check("[RE-ASSIGN FAILED CENTERS]");
+            Vertex inspectedMonarch = backupCenterIndex.findOwner(f).get();
+            Vertex newCenter = backupCenterIndex.liveBackupCenter(inspectedMonarch).get();
             newCenter.getClients().addAll(f.getClients());
             newCenter.getClients().forEach(x -> x.setCenter(newCenter));
             f.getClients().clear();
             inspectedMonarch.getBackupCenters().remove(newCenter);
+            backupCenterIndex.remove(inspectedMonarch, newCenter);
+            backupCenterIndex.remove(f, newCenter);
 
             newCenter.setColor(RED);
             f.setColor(BLACK);
@@ -839,6 +1018,9 @@ free node => node.getColor().equals(BLACK)
         });
 
 
+        if (!result.isRecording()) {
+            return;
+        }
         Set<Vertex> newHomes = new HashSet<>();
         needNewHome.forEach(x -> newHomes.add(x.getCenter()));
         newHomes.forEach(newHome -> {
@@ -847,21 +1029,88 @@ free node => node.getColor().equals(BLACK)
                 if (newHome.getClients().contains(x))
                     reassignedClients.add(x);
             });
-            result.addGraphToDraw("New assigned center for clients", Utils.copyHighlight(subGraph, reassignedClients, newHome, RED));
+            result.addHighlightedGraphToDraw("New assigned center for clients", subGraph, reassignedClients, newHome, RED);
         });
     }
 
 
+	//re-runs the failure repair on an already solved subGraph, Emp, ctr, majors and backup centers are read from its vertices
+	void reAssignByFailedAlgorithm(Graph<Vertex, DefaultWeightedEdge> subGraph, Set<Vertex> failedCenters, int maxClientsPerCenter, boolean isConservative) {
+		if (isConservative) {
+			conservativeReAssignByFailedAlgorithm(subGraph, failedCenters, maxClientsPerCenter);
+		} else {
+			allOfM1.clear();
+			subGraph.vertexSet().stream().filter(vertex -> vertex.getMajor() == vertex).forEach(allOfM1::add);
+			nonConservativeReAssignByFailedAlgorithm(subGraph, failedCenters, maxClientsPerCenter);
+		}
+	}
+
+	private Frontier newFrontier() {
+		return frontierSeed == null ? new Frontier() : new Frontier(new Random(frontierSeed));
+	}
+
+	private void enterPhase(String phase) {
+		cancellationToken.check(phase);
+		progressListener.onProgress(thresholdIndex, thresholdCount, phase);
+	}
+
+	private void mark(Graph<Vertex, DefaultWeightedEdge> subGraph, Vertex vertex) {
+		vertex.setMarked();
+		BitSetAdjacency adjacency = adjacencies.get(subGraph);
+		if (adjacency != null) {
+			adjacency.mark(vertex);
+		}
+	}
+
+	//Γi(v)
+	private List<Vertex> getVerticesUpToDistance(Graph<Vertex, DefaultWeightedEdge> subGraph, Vertex vertex, int distance) {
+		BitSetAdjacency adjacency = adjacencies.get(subGraph);
+		return adjacency != null ?
+				adjacency.getAdjacentVerticesUpToDistance(vertex, distance) :
+				getAdjacentVerticesUpToDistance(subGraph, vertex, distance);
+	}
+
+	//Ni(v)
+	private List<Vertex> getVerticesAtDistance(Graph<Vertex, DefaultWeightedEdge> subGraph, Vertex vertex, int distance) {
+		BitSetAdjacency adjacency = adjacencies.get(subGraph);
+		return adjacency != null ?
+				adjacency.getAdjacentVerticesAtDistance(vertex, distance) :
+				getAdjacentVerticesAtDistance(subGraph, vertex, distance);
+	}
+
+	//Γi(v) without the marked nodes
+	private List<Vertex> getUnmarkedVerticesUpToDistance(Graph<Vertex, DefaultWeightedEdge> subGraph, Vertex vertex, int distance) {
+		BitSetAdjacency adjacency = adjacencies.get(subGraph);
+		if (adjacency != null) {
+			return adjacency.unmarkedUpToDistance(vertex, distance);
+		}
+		return getAdjacentVerticesUpToDistance(subGraph, vertex, distance).stream().filter(x -> !x.isMarked()).collect(toList());
+	}
+
+	//Ni(v) without the marked nodes
+	private List<Vertex> getUnmarkedVerticesAtDistance(Graph<Vertex, DefaultWeightedEdge> subGraph, Vertex vertex, int distance) {
+		BitSetAdjacency adjacency = adjacencies.get(subGraph);
+		if (adjacency != null) {
+			return adjacency.unmarked(adjacency.ring(vertex, distance));
+		}
+		return getAdjacentVerticesAtDistance(subGraph, vertex, distance).stream().filter(x -> !x.isMarked()).collect(toList());
+	}
+
+	//Emp(v) ∩ Ni(v)
+	private Collection<Vertex> getEmpireAtDistance(Graph<Vertex, DefaultWeightedEdge> subGraph, Vertex vertex, int distance) {
+		BitSetAdjacency adjacency = adjacencies.get(subGraph);
+		if (adjacency != null) {
+			return adjacency.intersection(vertex.getEmpire(), adjacency.ring(vertex, distance));
+		}
+		return intersection(vertex.getEmpire(), getAdjacentVerticesAtDistance(subGraph, vertex, distance));
+	}
+
 	private void showFailedCenters(Graph<Vertex, DefaultWeightedEdge> graph, Set<Vertex> failedCenters) {
 		//show a graph with highlighted failed centers before calling reassignedByFailed algorithm
-		Graph<Vertex, DefaultWeightedEdge> graphCopy = copy(graph);
-		graphCopy
-				.vertexSet()
-				.stream()
-				.filter(failedCenters::contains)
-				.collect(toSet())
-				.forEach(failedCenter -> failedCenter.setColor(ORANGE));
-		result.addGraphToDraw("[MAIN] Failed centers", graphCopy);
+		if (!result.isRecording()) {
+			return;
+		}
+		result.addGraphToDraw("[MAIN] Failed centers", graph, vertex -> failedCenters.contains(vertex) ? ORANGE : vertex.getColor());
 	}
 
     //Will not be implemented...
@@ -0,0 +1,74 @@
+package elte.peterpolena.graph;
+
+import java.util.*;
+
+public class BackupCenterIndex {
+
+/*
+Live backup centers of every monarch, given the failed centers of one repair.
+owner(v) = the nearest vertex on the parent chain of v (v included) that still has a live backup center,
+found with path compressed jump pointers, exhausted owners are skipped by the next lookups.
+ */
+
+    private final Map<Vertex, Set<Vertex>> liveBackupCenters = new HashMap<>();
+    private final Set<Vertex> ownersWithLiveBackup = new LinkedHashSet<>();
+    private final Map<Vertex, Vertex> jump = new HashMap<>();
+    private int liveCount;
+
+    public BackupCenterIndex(Collection<Vertex> vertices, Set<Vertex> failedCenters) {
+        vertices.forEach(vertex -> {
+            if (vertex.getBackupCenters().isEmpty()) {
+                return;
+            }
+            Set<Vertex> live = new LinkedHashSet<>();
+            vertex.getBackupCenters().stream().filter(x -> !failedCenters.contains(x)).forEach(live::add);
+            if (!live.isEmpty()) {
+                liveBackupCenters.put(vertex, live);
+                ownersWithLiveBackup.add(vertex);
+                liveCount += live.size();
+            }
+        });
+    }
+
+    //the nearest owner on the parent chain, any owner if the chain has none
+    public Optional<Vertex> findOwner(Vertex vertex) {
+        Vertex owner = find(vertex);
+        if (owner == null) {
+            return ownersWithLiveBackup.stream().findFirst();
+        }
+        return Optional.of(owner);
+    }
+
+    public Optional<Vertex> liveBackupCenter(Vertex owner) {
+        Set<Vertex> live = liveBackupCenters.get(owner);
+        return live == null ? Optional.empty() : live.stream().findFirst();
+    }
+
+    public void remove(Vertex owner, Vertex backupCenter) {
+        Set<Vertex> live = liveBackupCenters.get(owner);
+        if (live != null && live.remove(backupCenter)) {
+            --liveCount;
+            if (live.isEmpty()) {
+                liveBackupCenters.remove(owner);
+                ownersWithLiveBackup.remove(owner);
+            }
+        }
+    }
+
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    private Vertex find(Vertex vertex) {
+        List<Vertex> path = new ArrayList<>();
+        Vertex current = vertex;
+        while (current != null && !liveBackupCenters.containsKey(current)) {
+            path.add(current);
+            current = jump.containsKey(current) ? jump.get(current) : current.getParent();
+        }
+        for (Vertex visited : path) {
+            jump.put(visited, current);
+        }
+        return current;
+    }
+}
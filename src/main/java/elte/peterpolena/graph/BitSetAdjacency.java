@@ -0,0 +1,196 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.util.*;
+
+public class BitSetAdjacency {
+
+/*
+rows[i] = N1(vertices[i]) as a bitset of vertex indices
+marked = bitset of the vertices marked so far by the select monarchs algorithms
+ball(v, i) = Γi(v)
+ring(v, i) = Ni(v) = Γi(v) AND-NOT Γi-1(v)
+ */
+
+    private final Vertex[] vertices;
+    private final VertexIndex indices;
+    private final long[][] rows;
+    private final long[] marked;
+    private final int words;
+
+    private BitSetAdjacency(Graph<Vertex, DefaultWeightedEdge> graph) {
+        this.vertices = graph.vertexSet().toArray(new Vertex[0]);
+        this.indices = new VertexIndex(vertices);
+        this.words = (vertices.length + 63) >>> 6;
+        this.rows = new long[vertices.length][words];
+        this.marked = new long[words];
+        graph.edgeSet().forEach(edge -> {
+            int source = indices.indexOf(graph.getEdgeSource(edge));
+            int target = indices.indexOf(graph.getEdgeTarget(edge));
+            set(rows[source], target);
+            set(rows[target], source);
+        });
+        for (int i = 0; i < vertices.length; ++i) {
+            if (vertices[i].isMarked()) {
+                set(marked, i);
+            }
+        }
+    }
+
+    public static BitSetAdjacency of(Graph<Vertex, DefaultWeightedEdge> graph) {
+        return new BitSetAdjacency(graph);
+    }
+
+    public static double density(Graph<Vertex, DefaultWeightedEdge> graph) {
+        long vertexCount = graph.vertexSet().size();
+        if (vertexCount < 2) {
+            return 1.0;
+        }
+        return 2.0 * graph.edgeSet().size() / (vertexCount * (vertexCount - 1));
+    }
+
+    public long[] ball(Vertex source, int distance) {
+        long[] ball = new long[words];
+        long[] frontier = new long[words];
+        int index = indexOf(source);
+        set(ball, index);
+        set(frontier, index);
+        for (int d = 0; d < distance && !isEmpty(frontier); ++d) {
+            long[] next = new long[words];
+            for (int i = nextSetBit(frontier, 0); i >= 0; i = nextSetBit(frontier, i + 1)) {
+                or(next, rows[i]);
+            }
+            andNot(next, ball);
+            or(ball, next);
+            frontier = next;
+        }
+        return ball;
+    }
+
+    public long[] ring(Vertex source, int distance) {
+        if (distance == 0) {
+            long[] ring = new long[words];
+            set(ring, indexOf(source));
+            return ring;
+        }
+        long[] ring = ball(source, distance);
+        andNot(ring, ball(source, distance - 1));
+        return ring;
+    }
+
+    public List<Vertex> getAdjacentVerticesUpToDistance(Vertex source, int distance) {
+        return toVertices(ball(source, distance));
+    }
+
+    public List<Vertex> getAdjacentVerticesAtDistance(Vertex source, int distance) {
+        long[] ring = ring(source, distance);
+        clear(ring, indexOf(source));
+        return toVertices(ring);
+    }
+
+    public List<Vertex> intersection(Collection<Vertex> vertices, long[] bits) {
+        long[] mask = toBits(vertices);
+        and(mask, bits);
+        return toVertices(mask);
+    }
+
+    public List<Vertex> unmarked(long[] bits) {
+        long[] result = bits.clone();
+        andNot(result, marked);
+        return toVertices(result);
+    }
+
+    public List<Vertex> unmarkedUpToDistance(Vertex source, int distance) {
+        long[] ball = ball(source, distance);
+        andNot(ball, marked);
+        return toVertices(ball);
+    }
+
+    public void mark(Vertex vertex) {
+        int index = indices.indexOf(vertex);
+        if (index >= 0) {
+            set(marked, index);
+        }
+    }
+
+    public long[] toBits(Collection<Vertex> vertices) {
+        long[] bits = new long[words];
+        vertices.forEach(vertex -> {
+            int index = indices.indexOf(vertex);
+            if (index >= 0) {
+                set(bits, index);
+            }
+        });
+        return bits;
+    }
+
+    public List<Vertex> toVertices(long[] bits) {
+        List<Vertex> list = new ArrayList<>();
+        for (int i = nextSetBit(bits, 0); i >= 0; i = nextSetBit(bits, i + 1)) {
+            list.add(vertices[i]);
+        }
+        return list;
+    }
+
+    private int indexOf(Vertex vertex) {
+        int index = indices.indexOf(vertex);
+        if (index < 0) {
+            throw new IllegalArgumentException("No such vertex in graph: " + vertex);
+        }
+        return index;
+    }
+
+    private int nextSetBit(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= words) {
+            return -1;
+        }
+        long current = bits[word] & (-1L << from);
+        while (true) {
+            if (current != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(current);
+            }
+            if (++word == words) {
+                return -1;
+            }
+            current = bits[word];
+        }
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void or(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; ++i) {
+            target[i] |= bits[i];
+        }
+    }
+
+    private static void and(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; ++i) {
+            target[i] &= bits[i];
+        }
+    }
+
+    private static void andNot(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; ++i) {
+            target[i] &= ~bits[i];
+        }
+    }
+}
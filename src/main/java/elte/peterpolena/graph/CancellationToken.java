@@ -0,0 +1,45 @@
+package elte.peterpolena.graph;
+
+import java.util.concurrent.CancellationException;
+
+public class CancellationToken {
+
+    private final long deadline;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+
+    public CancellationToken() {
+        this.deadline = 0;
+        this.hasDeadline = false;
+    }
+
+    private CancellationToken(long timeBudgetMillis) {
+        this.deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        this.hasDeadline = true;
+    }
+
+    public static CancellationToken withTimeBudget(long timeBudgetMillis) {
+        return new CancellationToken(timeBudgetMillis);
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isExpired() {
+        return hasDeadline && System.nanoTime() - deadline >= 0;
+    }
+
+    public void check(String phase) {
+        if (cancelled) {
+            throw new CancellationException("Cancelled during " + phase);
+        }
+        if (isExpired()) {
+            throw new CancellationException("Time budget exceeded during " + phase);
+        }
+    }
+}
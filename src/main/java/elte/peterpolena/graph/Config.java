@@ -4,29 +4,52 @@ import java.awt.*;
 
 public class Config {
 
-	public static final int screenWidth = Toolkit.getDefaultToolkit().getScreenSize().width;
-	public static final int screenHeight = Toolkit.getDefaultToolkit().getScreenSize().height;
+/*
+Static view of GraphProperties.current(), set up when Config is first used.
+The screen is only asked if the layout is not configured, in a headless JVM never.
+ */
+
+	private static final GraphProperties properties = GraphProperties.current();
+	private static final GraphProperties.Layout layout = properties.getLayout();
+	private static final Dimension screenSize = layout.screenSize();
+
+	public static final int screenWidth = screenSize.width;
+	public static final int screenHeight = screenSize.height;
 	public static final int frameWidth = (int) Math.round(screenWidth * 0.75);
 	public static final int frameHeight = (int) Math.round(screenHeight * 0.85);
 	public static final int graphPanelWidth = frameWidth;
 	public static final int graphPanelHeight = (int) Math.round(frameHeight * 0.75);
 	public static final int sliderPanelWidth = frameWidth;
 	public static final int sliderPanelHeight = (int) Math.round(screenHeight * 0.25);
-	public static final int minXCoordinate = (int) Math.round(graphPanelWidth * 0.05);
-	public static final int minYCoordinate = (int) Math.round(graphPanelHeight * 0.05);
-	public static final int maxXCoordinate = (int) Math.round(graphPanelWidth - (graphPanelWidth * 0.1));
-	public static final int maxYCoordinate = (int) Math.round(graphPanelHeight - (graphPanelHeight * 0.05));
+	public static final int minXCoordinate = orDefault(layout.getMinXCoordinate(), (int) Math.round(graphPanelWidth * 0.05));
+	public static final int minYCoordinate = orDefault(layout.getMinYCoordinate(), (int) Math.round(graphPanelHeight * 0.05));
+	public static final int maxXCoordinate = orDefault(layout.getMaxXCoordinate(), (int) Math.round(graphPanelWidth - (graphPanelWidth * 0.1)));
+	public static final int maxYCoordinate = orDefault(layout.getMaxYCoordinate(), (int) Math.round(graphPanelHeight - (graphPanelHeight * 0.05)));
 	public static final int centerX = (int) Math.round(graphPanelWidth * 0.5);
 	public static final int centerY = (int) Math.round(graphPanelHeight * 0.5);
 	public static final double graphRadius = (int) Math.round(graphPanelHeight * 0.33);
 	public static final int vertexRadius = (int) Math.round(graphRadius * 0.1);
 	public static final int sliderMinValue = 0;
-	public static final int sliderMaxValue = 10;
+	public static final int sliderMaxValue = properties.getLimits().getMaxVertices();
 	public static final int centersSliderStartValue = 0;
 	public static final int clientsSliderStartValue = 0;
-	public static final int minWeight = 1;
-	public static final int maxWeight = 10;
-	public static final int maxCenters = 10;
-	public static final int maxClientsPerCenter = 10;
-	public static final int maxTimerDelay = 10000;
+	public static final int minWeight = properties.getGenerator().getMinWeight();
+	public static final int maxWeight = properties.getGenerator().getMaxWeight();
+	public static final int denseVertexThreshold = properties.getGenerator().getDenseVertexThreshold();
+	public static final int maxCenters = properties.getLimits().getMaxCenters();
+	public static final int maxClientsPerCenter = properties.getLimits().getMaxClientsPerCenter();
+	public static final int maxTimerDelay = properties.getLimits().getMaxTimerDelay();
+	public static final double bitSetDensityCutoff = properties.getSolver().getBitSetDensityCutoff();
+	public static final int stepStreamCapacity = properties.getSolver().getStepStreamCapacity();
+	public static final int solutionCacheSize = properties.getSolver().getSolutionCacheSize();
+	public static final int stepsKeptInMemory = properties.getSolver().getStepsKeptInMemory();
+	public static final int maxDrawnEdges = properties.getRender().getMaxDrawnEdges();
+	public static final int edgeCellSize = properties.getRender().getEdgeCellSize();
+	public static final int maxEdgesPerCell = properties.getRender().getMaxEdgesPerCell();
+	public static final int minLabelSpacing = properties.getRender().getMinLabelSpacing();
+	public static final int prerenderedFrames = properties.getRender().getPrerenderedFrames();
+
+	private static int orDefault(Integer value, int defaultValue) {
+		return value == null ? defaultValue : value;
+	}
 }
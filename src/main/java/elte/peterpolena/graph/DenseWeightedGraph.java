@@ -0,0 +1,496 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleBiFunction;
+
+public class DenseWeightedGraph extends AbstractGraph<Vertex, DefaultWeightedEdge> {
+
+/*
+Read-only complete graph without edge objects.
+weights[index(i, j)] = w(vertices[i], vertices[j]) for i < j (lower triangular, row by row)
+maxWeight = w, the graph only contains the edges of weight <= w (Gw)
+members = the induced vertex subset, null if every vertex is a member
+ */
+
+    private final Vertex[] vertices;
+    private final VertexIndex indices;
+    private final float[] weights;
+    private final ToDoubleBiFunction<Vertex, Vertex> weightFunction;
+    private final double maxWeight;
+    private final int[] members;
+    private final Set<Vertex> vertexSet;
+    private final Set<DefaultWeightedEdge> edgeSet;
+    private int edgeCount = -1;
+
+    public DenseWeightedGraph(List<Vertex> vertices, float[] weights) {
+        this(vertices.toArray(new Vertex[0]), weights, null);
+        if (weights.length != triangleSize(vertices.size())) {
+            throw new IllegalArgumentException("Expected " + triangleSize(vertices.size()) + " weights, got " + weights.length);
+        }
+    }
+
+    public DenseWeightedGraph(List<Vertex> vertices, ToDoubleBiFunction<Vertex, Vertex> weightFunction) {
+        this(vertices.toArray(new Vertex[0]), null, weightFunction);
+    }
+
+    private DenseWeightedGraph(Vertex[] vertices, float[] weights, ToDoubleBiFunction<Vertex, Vertex> weightFunction) {
+        this.vertices = vertices;
+        this.indices = new VertexIndex(vertices);
+        this.weights = weights;
+        this.weightFunction = weightFunction;
+        this.maxWeight = Double.POSITIVE_INFINITY;
+        this.members = null;
+        this.vertexSet = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(vertices)));
+        this.edgeSet = new EdgeSet();
+    }
+
+    private DenseWeightedGraph(DenseWeightedGraph graph, double maxWeight, int[] members) {
+        this.vertices = graph.vertices;
+        this.indices = graph.indices;
+        this.weights = graph.weights;
+        this.weightFunction = graph.weightFunction;
+        this.maxWeight = maxWeight;
+        this.members = members;
+        if (members == null) {
+            this.vertexSet = graph.members == null ? graph.vertexSet : Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(vertices)));
+        } else {
+            Set<Vertex> memberVertices = new LinkedHashSet<>();
+            for (int member : members) {
+                memberVertices.add(vertices[member]);
+            }
+            this.vertexSet = Collections.unmodifiableSet(memberVertices);
+        }
+        this.edgeSet = new EdgeSet();
+    }
+
+    public static DenseWeightedGraph of(List<Vertex> vertices, ToDoubleBiFunction<Vertex, Vertex> weightFunction) {
+        float[] weights = new float[triangleSize(vertices.size())];
+        for (int j = 1; j < vertices.size(); ++j) {
+            for (int i = 0; i < j; ++i) {
+                weights[index(i, j)] = (float) weightFunction.applyAsDouble(vertices.get(i), vertices.get(j));
+            }
+        }
+        return new DenseWeightedGraph(vertices, weights);
+    }
+
+    public static DenseWeightedGraph euclidean(List<Vertex> vertices) {
+        return new DenseWeightedGraph(vertices, (u, v) -> Math.hypot(u.getX() - v.getX(), u.getY() - v.getY()));
+    }
+
+    //shares the weights, the vertices are fresh copies without solver state
+    public DenseWeightedGraph copyVertices() {
+        Vertex[] copies = Arrays.stream(vertices).map(Vertex::new).toArray(Vertex[]::new);
+        DenseWeightedGraph copy = new DenseWeightedGraph(copies, weights, weightFunction);
+        return maxWeight == Double.POSITIVE_INFINITY && members == null ? copy : new DenseWeightedGraph(copy, maxWeight, members);
+    }
+
+    public double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public DenseWeightedGraph getThresholdSubGraph(double maxWeight) {
+        return new DenseWeightedGraph(this, Math.min(maxWeight, this.maxWeight), members);
+    }
+
+    public DenseWeightedGraph getInducedSubGraph(Set<Vertex> vertices) {
+        int[] subset = vertices.stream()
+                .mapToInt(this::indexOf)
+                .filter(this::isMember)
+                .sorted()
+                .toArray();
+        return new DenseWeightedGraph(this, maxWeight, subset);
+    }
+
+    public List<Double> getDistinctWeights() {
+        SortedSet<Double> distinctWeights = new TreeSet<>();
+        forEachMemberPair((i, j) -> {
+            double weight = weight(i, j);
+            if (weight <= maxWeight) {
+                distinctWeights.add(weight);
+            }
+        });
+        return new ArrayList<>(distinctWeights);
+    }
+
+    public Iterator<Vertex> neighborsWithin(Vertex vertex, double maxWeight) {
+        int source = indexOf(vertex);
+        double limit = Math.min(maxWeight, this.maxWeight);
+        return new NeighborIterator<Vertex>(source, limit) {
+            @Override
+            Vertex map(int target) {
+                return vertices[target];
+            }
+        };
+    }
+
+    public double getWeight(Vertex source, Vertex target) {
+        return weight(indexOf(source), indexOf(target));
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> getAllEdges(Vertex sourceVertex, Vertex targetVertex) {
+        DefaultWeightedEdge edge = getEdge(sourceVertex, targetVertex);
+        return edge == null ? Collections.emptySet() : Collections.singleton(edge);
+    }
+
+    @Override
+    public DefaultWeightedEdge getEdge(Vertex sourceVertex, Vertex targetVertex) {
+        int source = indices.indexOf(sourceVertex);
+        int target = indices.indexOf(targetVertex);
+        if (source < 0 || target < 0 || !isAdjacent(source, target)) {
+            return null;
+        }
+        return new Edge(source, target);
+    }
+
+    @Override
+    public Supplier<Vertex> getVertexSupplier() {
+        return null;
+    }
+
+    @Override
+    public Supplier<DefaultWeightedEdge> getEdgeSupplier() {
+        return null;
+    }
+
+    @Override
+    public DefaultWeightedEdge addEdge(Vertex sourceVertex, Vertex targetVertex) {
+        throw new UnsupportedOperationException("DenseWeightedGraph is read-only");
+    }
+
+    @Override
+    public boolean addEdge(Vertex sourceVertex, Vertex targetVertex, DefaultWeightedEdge edge) {
+        throw new UnsupportedOperationException("DenseWeightedGraph is read-only");
+    }
+
+    @Override
+    public Vertex addVertex() {
+        throw new UnsupportedOperationException("DenseWeightedGraph is read-only");
+    }
+
+    @Override
+    public boolean addVertex(Vertex vertex) {
+        throw new UnsupportedOperationException("DenseWeightedGraph is read-only");
+    }
+
+    @Override
+    public boolean containsEdge(Vertex sourceVertex, Vertex targetVertex) {
+        return getEdge(sourceVertex, targetVertex) != null;
+    }
+
+    @Override
+    public boolean containsEdge(DefaultWeightedEdge edge) {
+        if (!(edge instanceof Edge)) {
+            return false;
+        }
+        Edge denseEdge = (Edge) edge;
+        return denseEdge.target < vertices.length
+                && vertices[denseEdge.source] == denseEdge.sourceVertex
+                && vertices[denseEdge.target] == denseEdge.targetVertex
+                && isAdjacent(denseEdge.source, denseEdge.target);
+    }
+
+    @Override
+    public boolean containsVertex(Vertex vertex) {
+        int index = indices.indexOf(vertex);
+        return index >= 0 && isMember(index);
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> edgeSet() {
+        return edgeSet;
+    }
+
+    @Override
+    public int degreeOf(Vertex vertex) {
+        int degree = 0;
+        Iterator<Vertex> neighbors = neighborsWithin(vertex, maxWeight);
+        while (neighbors.hasNext()) {
+            neighbors.next();
+            ++degree;
+        }
+        return degree;
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> edgesOf(Vertex vertex) {
+        int source = indexOf(vertex);
+        return new AbstractSet<DefaultWeightedEdge>() {
+            @Override
+            public Iterator<DefaultWeightedEdge> iterator() {
+                return new NeighborIterator<DefaultWeightedEdge>(source, maxWeight) {
+                    @Override
+                    DefaultWeightedEdge map(int target) {
+                        return new Edge(source, target);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return degreeOf(vertex);
+            }
+        };
+    }
+
+    @Override
+    public int inDegreeOf(Vertex vertex) {
+        return degreeOf(vertex);
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> incomingEdgesOf(Vertex vertex) {
+        return edgesOf(vertex);
+    }
+
+    @Override
+    public int outDegreeOf(Vertex vertex) {
+        return degreeOf(vertex);
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> outgoingEdgesOf(Vertex vertex) {
+        return edgesOf(vertex);
+    }
+
+    @Override
+    public DefaultWeightedEdge removeEdge(Vertex sourceVertex, Vertex targetVertex) {
+        throw new UnsupportedOperationException("DenseWeightedGraph is read-only");
+    }
+
+    @Override
+    public boolean removeEdge(DefaultWeightedEdge edge) {
+        throw new UnsupportedOperationException("DenseWeightedGraph is read-only");
+    }
+
+    @Override
+    public boolean removeVertex(Vertex vertex) {
+        throw new UnsupportedOperationException("DenseWeightedGraph is read-only");
+    }
+
+    @Override
+    public Set<Vertex> vertexSet() {
+        return vertexSet;
+    }
+
+    @Override
+    public Vertex getEdgeSource(DefaultWeightedEdge edge) {
+        return ((Edge) edge).sourceVertex;
+    }
+
+    @Override
+    public Vertex getEdgeTarget(DefaultWeightedEdge edge) {
+        return ((Edge) edge).targetVertex;
+    }
+
+    @Override
+    public GraphType getType() {
+        return new DefaultGraphType.Builder()
+                .undirected()
+                .allowSelfLoops(false)
+                .allowMultipleEdges(false)
+                .weighted(true)
+                .modifiable(false)
+                .build();
+    }
+
+    @Override
+    public double getEdgeWeight(DefaultWeightedEdge edge) {
+        Edge denseEdge = (Edge) edge;
+        return weight(denseEdge.source, denseEdge.target);
+    }
+
+    @Override
+    public void setEdgeWeight(DefaultWeightedEdge edge, double weight) {
+        throw new UnsupportedOperationException("DenseWeightedGraph is read-only");
+    }
+
+    private int indexOf(Vertex vertex) {
+        int index = indices.indexOf(vertex);
+        if (index < 0) {
+            throw new IllegalArgumentException("No such vertex in graph: " + vertex);
+        }
+        return index;
+    }
+
+    private boolean isMember(int index) {
+        return members == null || Arrays.binarySearch(members, index) >= 0;
+    }
+
+    private boolean isAdjacent(int source, int target) {
+        return source != target && isMember(source) && isMember(target) && weight(source, target) <= maxWeight;
+    }
+
+    private double weight(int source, int target) {
+        if (weights == null) {
+            return weightFunction.applyAsDouble(vertices[source], vertices[target]);
+        }
+        return source < target ? weights[index(source, target)] : weights[index(target, source)];
+    }
+
+    private void forEachMemberPair(PairConsumer consumer) {
+        int count = members == null ? vertices.length : members.length;
+        for (int b = 1; b < count; ++b) {
+            int j = members == null ? b : members[b];
+            for (int a = 0; a < b; ++a) {
+                consumer.accept(members == null ? a : members[a], j);
+            }
+        }
+    }
+
+    private static int triangleSize(int vertexCount) {
+        return (int) ((long) vertexCount * (vertexCount - 1) / 2);
+    }
+
+    private static int index(int i, int j) {
+        return (int) ((long) j * (j - 1) / 2 + i);
+    }
+
+    private interface PairConsumer {
+        void accept(int i, int j);
+    }
+
+    private abstract class NeighborIterator<T> implements Iterator<T> {
+
+        private final int source;
+        private final double limit;
+        private int position = -1;
+        private int next;
+
+        NeighborIterator(int source, double limit) {
+            this.source = source;
+            this.limit = limit;
+            this.next = advance();
+        }
+
+        abstract T map(int target);
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public T next() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            int target = next;
+            next = advance();
+            return map(target);
+        }
+
+        private int advance() {
+            int count = members == null ? vertices.length : members.length;
+            while (++position < count) {
+                int candidate = members == null ? position : members[position];
+                if (candidate != source && weight(source, candidate) <= limit) {
+                    return candidate;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private class EdgeSet extends AbstractSet<DefaultWeightedEdge> {
+
+        @Override
+        public Iterator<DefaultWeightedEdge> iterator() {
+            return new Iterator<DefaultWeightedEdge>() {
+                private final int count = members == null ? vertices.length : members.length;
+                private int a = -1;
+                private int b = 1;
+                private Edge next = advance();
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public DefaultWeightedEdge next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Edge edge = next;
+                    next = advance();
+                    return edge;
+                }
+
+                private Edge advance() {
+                    while (b < count) {
+                        if (++a < b) {
+                            int i = members == null ? a : members[a];
+                            int j = members == null ? b : members[b];
+                            if (weight(i, j) <= maxWeight) {
+                                return new Edge(i, j);
+                            }
+                        } else {
+                            a = -1;
+                            ++b;
+                        }
+                    }
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            if (edgeCount < 0) {
+                int[] count = {0};
+                forEachMemberPair((i, j) -> {
+                    if (weight(i, j) <= maxWeight) {
+                        ++count[0];
+                    }
+                });
+                edgeCount = count[0];
+            }
+            return edgeCount;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof DefaultWeightedEdge && containsEdge((DefaultWeightedEdge) o);
+        }
+    }
+
+    private class Edge extends DefaultWeightedEdge {
+
+        private final int source;
+        private final int target;
+        private final Vertex sourceVertex;
+        private final Vertex targetVertex;
+
+        Edge(int source, int target) {
+            this.source = Math.min(source, target);
+            this.target = Math.max(source, target);
+            this.sourceVertex = vertices[this.source];
+            this.targetVertex = vertices[this.target];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Edge edge = (Edge) o;
+            return source == edge.source && target == edge.target && sourceVertex == edge.sourceVertex;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * source + target;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + sourceVertex + " : " + targetVertex + ")";
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static elte.peterpolena.graph.Utils.getCenters;
+import static elte.peterpolena.graph.Utils.getThresholdSubGraph;
+import static java.awt.Color.RED;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+public class FailureScenarioEvaluator {
+
+/*
+Replays the failure repair of a solved assignment (mainAlgorithm with withFailure = false)
+for many failure sets of size α, every scenario on its own fork of the solved state.
+scenario result = (max d(v, ctr(v)), max |dom(c)|) after the repair
+ */
+
+    private final Graph<Vertex, DefaultWeightedEdge> graph;
+    private final Graph<Vertex, DefaultWeightedEdge> subGraph;
+    private final List<Vertex> centers;
+    private final int maxClientsPerCenter;
+    private final int maxFailedCenters;
+    private final boolean isConservative;
+
+    public FailureScenarioEvaluator(Graph<Vertex, DefaultWeightedEdge> solvedGraph,
+                                    double threshold,
+                                    int maxClientsPerCenter,
+                                    int maxFailedCenters,
+                                    boolean isConservative) {
+        this.graph = solvedGraph;
+        this.subGraph = getThresholdSubGraph(solvedGraph, threshold);
+        this.centers = new ArrayList<>(getCenters(solvedGraph));
+        this.maxClientsPerCenter = maxClientsPerCenter;
+        this.maxFailedCenters = maxFailedCenters;
+        this.isConservative = isConservative;
+    }
+
+    public Report evaluateSampled(int scenarioCount, long seed) {
+        Random random = new Random(seed);
+        List<List<Vertex>> failureSets = new ArrayList<>();
+        for (int i = 0; i < scenarioCount; ++i) {
+            List<Vertex> shuffled = new ArrayList<>(centers);
+            Collections.shuffle(shuffled, random);
+            failureSets.add(shuffled.subList(0, Math.min(maxFailedCenters, shuffled.size())));
+        }
+        return evaluate(failureSets);
+    }
+
+    //every α-subset of the centers, in lexicographic order, at most maxScenarios of them
+    public Report evaluateExhaustive(int maxScenarios) {
+        List<List<Vertex>> failureSets = new ArrayList<>();
+        int size = Math.min(maxFailedCenters, centers.size());
+        int[] combination = IntStream.range(0, size).toArray();
+        while (failureSets.size() < maxScenarios) {
+            failureSets.add(Arrays.stream(combination).mapToObj(centers::get).collect(toList()));
+            int i = size - 1;
+            while (i >= 0 && combination[i] == centers.size() - size + i) {
+                --i;
+            }
+            if (i < 0) {
+                break;
+            }
+            ++combination[i];
+            for (int j = i + 1; j < size; ++j) {
+                combination[j] = combination[j - 1] + 1;
+            }
+        }
+        return evaluate(failureSets);
+    }
+
+    private Report evaluate(List<List<Vertex>> failureSets) {
+        System.out.println("\nSTART FAILURE SCENARIO EVALUATION\n");
+        System.out.println("\tScenarios: " + failureSets.size());
+        List<Optional<double[]>> outcomes = failureSets
+                .parallelStream()
+                .map(this::runScenario)
+                .collect(toList());
+        Report report = new Report(outcomes);
+        System.out.println("\t" + report);
+        System.out.println("\nEND FAILURE SCENARIO EVALUATION\n");
+        return report;
+    }
+
+    private Optional<double[]> runScenario(List<Vertex> failureSet) {
+        Map<Vertex, Vertex> copies = new HashMap<>();
+        Graph<Vertex, DefaultWeightedEdge> fork = fork(copies);
+        Set<Vertex> failedCenters = failureSet.stream().map(copies::get).collect(toSet());
+
+        AlgorithmService algorithmService = new AlgorithmService();
+        algorithmService.setRecording(false);
+        try {
+            algorithmService.reAssignByFailedAlgorithm(fork, failedCenters, maxClientsPerCenter, isConservative);
+        } catch (NoSuchElementException e) {
+            //no surviving center could take over the clients (the reassignment found no free or backup center),
+            //any other exception is a bug and fails the evaluation
+            return Optional.empty();
+        }
+
+        double maxClientDistance = 0;
+        int maxCenterLoad = 0;
+        for (Vertex vertex : fork.vertexSet()) {
+            if (vertex.getColor().equals(RED)) {
+                maxCenterLoad = Math.max(maxCenterLoad, vertex.getClients().size());
+            }
+            Vertex center = vertex.getCenter();
+            if (center != null && !center.equals(vertex)) {
+                DefaultWeightedEdge edge = graph.getEdge(vertex, center);
+                maxClientDistance = Math.max(maxClientDistance, edge == null ? Double.POSITIVE_INFINITY : graph.getEdgeWeight(edge));
+            }
+        }
+        return Optional.of(new double[]{maxClientDistance, maxCenterLoad});
+    }
+
+    //copies the threshold subgraph together with the solver state of its vertices, the solved graph is only read
+    private Graph<Vertex, DefaultWeightedEdge> fork(Map<Vertex, Vertex> copies) {
+        subGraph.vertexSet().forEach(vertex -> copies.put(vertex, new Vertex(vertex)));
+        subGraph.vertexSet().forEach(vertex -> {
+            Vertex copy = copies.get(vertex);
+            copy.setParent(copies.get(vertex.getParent()));
+            copy.setMajor(copies.get(vertex.getMajor()));
+            copy.setDeputy(copies.get(vertex.getDeputy()));
+            copy.setCenter(copies.get(vertex.getCenter()));
+            if (vertex.isMarked()) {
+                copy.setMarked();
+            }
+            if (vertex.isMonarch()) {
+                copy.setMonarch();
+            }
+            vertex.getMinors().forEach(minor -> copy.addMinor(copies.get(minor)));
+            vertex.getClients().forEach(client -> copy.addClient(copies.get(client)));
+            vertex.getBackupCenters().forEach(backupCenter -> copy.getBackupCenters().add(copies.get(backupCenter)));
+            vertex.getEmpire().forEach(member -> copy.addToEmpire(copies.get(member)));
+            vertex.getChildren().forEach(child -> copy.addChild(copies.get(child)));
+        });
+
+        Graph<Vertex, DefaultWeightedEdge> fork = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+        copies.values().forEach(fork::addVertex);
+        subGraph.edgeSet().forEach(edge -> {
+            Vertex source = copies.get(subGraph.getEdgeSource(edge));
+            Vertex target = copies.get(subGraph.getEdgeTarget(edge));
+            fork.addEdge(source, target);
+            fork.setEdgeWeight(source, target, subGraph.getEdgeWeight(edge));
+        });
+        return fork;
+    }
+
+    public static class Report {
+
+        private final int scenarios;
+        private final int unrecoverable;
+        private final double[] maxClientDistances;
+        private final double[] maxCenterLoads;
+
+        private Report(List<Optional<double[]>> outcomes) {
+            this.scenarios = outcomes.size();
+            List<double[]> recovered = outcomes.stream().filter(Optional::isPresent).map(Optional::get).collect(toList());
+            this.unrecoverable = scenarios - recovered.size();
+            this.maxClientDistances = recovered.stream().mapToDouble(outcome -> outcome[0]).sorted().toArray();
+            this.maxCenterLoads = recovered.stream().mapToDouble(outcome -> outcome[1]).sorted().toArray();
+        }
+
+        public int getScenarios() {
+            return scenarios;
+        }
+
+        public int getUnrecoverable() {
+            return unrecoverable;
+        }
+
+        public double[] getMaxClientDistances() {
+            return maxClientDistances.clone();
+        }
+
+        public double[] getMaxCenterLoads() {
+            return maxCenterLoads.clone();
+        }
+
+        public DoubleSummaryStatistics getMaxClientDistanceStatistics() {
+            return Arrays.stream(maxClientDistances).summaryStatistics();
+        }
+
+        public DoubleSummaryStatistics getMaxCenterLoadStatistics() {
+            return Arrays.stream(maxCenterLoads).summaryStatistics();
+        }
+
+        public double maxClientDistancePercentile(double percentile) {
+            return percentile(maxClientDistances, percentile);
+        }
+
+        public double maxCenterLoadPercentile(double percentile) {
+            return percentile(maxCenterLoads, percentile);
+        }
+
+        private static double percentile(double[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "scenarios=" + scenarios +
+                    ", unrecoverable=" + unrecoverable +
+                    ", maxClientDistance=" + getMaxClientDistanceStatistics() +
+                    ", maxClientDistanceP95=" + maxClientDistancePercentile(95) +
+                    ", maxCenterLoad=" + getMaxCenterLoadStatistics() +
+                    ", maxCenterLoadP95=" + maxCenterLoadPercentile(95) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+import static elte.peterpolena.graph.Config.*;
+import static java.awt.Color.*;
+
+public class FlowNetwork {
+
+/*
+The network of MinCostMaxFlowService.getFlow kept for display.
+neighbors[i] = positions in vertices of the Γ2 of monarchs[i] (or of its major), the edges of E'
+toBipartiteGraph() = s -> M (capacity L), M -> V over E' (capacity 1, weight 0 if m = v), V -> t (capacity 1)
+ */
+
+    private final Vertex[] monarchs;
+    private final Vertex[] vertices;
+    private final int[][] neighbors;
+    private final int maxClientsPerCenter;
+
+    public FlowNetwork(Vertex[] monarchs, Vertex[] vertices, int[][] neighbors, int maxClientsPerCenter) {
+        this.monarchs = monarchs;
+        this.vertices = vertices;
+        this.neighbors = neighbors;
+        this.maxClientsPerCenter = maxClientsPerCenter;
+    }
+
+    //positions the copies in two columns, the vertices on the right and the monarchs on the left
+    public Graph<Vertex, WeightedEdgeWithCapacity> toBipartiteGraph() {
+        Graph<Vertex, WeightedEdgeWithCapacity> bipartiteGraph = new SimpleDirectedWeightedGraph<>(WeightedEdgeWithCapacity.class);
+
+        Vertex[] vertexCopies = new Vertex[vertices.length];
+        for (int j = 0; j < vertices.length; ++j) {
+            Vertex x = vertices[j];
+            vertexCopies[j] = new Vertex((x.getX() - minXCoordinate) / 2 + minXCoordinate + (maxXCoordinate - minXCoordinate) / 2, (x.getY() - (maxYCoordinate - minYCoordinate) / 2) / 2 + (maxYCoordinate - minYCoordinate) / 2, BLACK);
+            bipartiteGraph.addVertex(vertexCopies[j]);
+        }
+        Vertex[] monarchCopies = new Vertex[monarchs.length];
+        for (int i = 0; i < monarchs.length; ++i) {
+            Vertex x = monarchs[i];
+            monarchCopies[i] = new Vertex((x.getX() - minXCoordinate) / 2 + minXCoordinate, (x.getY() - (maxYCoordinate - minYCoordinate) / 2) / 2 + (maxYCoordinate - minYCoordinate) / 2, GREEN);
+            bipartiteGraph.addVertex(monarchCopies[i]);
+        }
+
+        //add s and t
+        Vertex source = new Vertex(minXCoordinate + 10, minYCoordinate + 10, CYAN);
+        Vertex target = new Vertex(maxXCoordinate - 10, maxYCoordinate - 10, BLUE);
+        bipartiteGraph.addVertex(source);
+        bipartiteGraph.addVertex(target);
+
+        for (int i = 0; i < monarchs.length; ++i) {
+            bipartiteGraph.addEdge(source, monarchCopies[i]).setCapacity(maxClientsPerCenter);
+            //E'
+            for (int j : neighbors[i]) {
+                WeightedEdgeWithCapacity edge = bipartiteGraph.addEdge(monarchCopies[i], vertexCopies[j]);
+                edge.setCapacity(1);
+                if (monarchs[i].equals(vertices[j])) {
+                    bipartiteGraph.setEdgeWeight(edge, 0);
+                }
+            }
+        }
+        for (Vertex vertexCopy : vertexCopies) {
+            bipartiteGraph.addEdge(vertexCopy, target).setCapacity(1);
+        }
+        return bipartiteGraph;
+    }
+}
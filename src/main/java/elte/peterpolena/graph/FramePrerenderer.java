@@ -0,0 +1,126 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static elte.peterpolena.graph.Utils.share;
+
+public class FramePrerenderer {
+
+/*
+Auto playback consumer of a StepStream: a background thread renders the next steps into images of the painter size,
+at most capacity frames ahead of the drawing timer, so a timer tick only swaps an image.
+The edge layer of the previous frame is reused while the topology does not change, as in GraphPainter.
+ */
+
+    private static final long POLL_TIMEOUT_MILLIS = 50;
+
+    private final StepStream stepStream;
+    private final BlockingQueue<Frame> frames;
+    private final int width;
+    private final int height;
+    private final Font font;
+    private final boolean showEdgeWeight;
+    private final boolean relevantEdgesOnly;
+    private final Thread thread;
+    private volatile boolean finished;
+
+    public FramePrerenderer(StepStream stepStream, int capacity, Dimension size, Font font, boolean showEdgeWeight, boolean relevantEdgesOnly) {
+        this.stepStream = stepStream;
+        this.frames = new ArrayBlockingQueue<>(capacity);
+        this.width = size.width;
+        this.height = size.height;
+        this.font = font;
+        this.showEdgeWeight = showEdgeWeight;
+        this.relevantEdgesOnly = relevantEdgesOnly;
+        this.thread = new Thread(this::render, "frame-prerenderer");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void stop() {
+        thread.interrupt();
+    }
+
+    public Frame poll() {
+        return frames.poll();
+    }
+
+    //the stream is drained and every frame was taken
+    public boolean isFinished() {
+        return finished && frames.isEmpty();
+    }
+
+    private void render() {
+        Graph<Vertex, DefaultWeightedEdge> previous = null;
+        int previousEdgeCount = 0;
+        BufferedImage edgeLayer = null;
+        try {
+            while (!stepStream.isFinished()) {
+                StepStream.Step step = stepStream.poll(POLL_TIMEOUT_MILLIS);
+                if (step == null) {
+                    continue;
+                }
+                Graph<Vertex, DefaultWeightedEdge> graph = share(step.getGraph());
+                if (relevantEdgesOnly || edgeLayer == null || !GraphPainter.hasTopology(previous, previousEdgeCount, graph)) {
+                    edgeLayer = GraphPainter.paintEdgeLayer(graph, width, height, new Rectangle(0, 0, width, height), font, showEdgeWeight, relevantEdgesOnly);
+                }
+                previous = graph;
+                previousEdgeCount = graph.edgeSet().size();
+                frames.put(new Frame(step.getDescription(), graph, paintFrame(graph, edgeLayer)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finished = true;
+        }
+    }
+
+    private BufferedImage paintFrame(Graph<Vertex, DefaultWeightedEdge> graph, BufferedImage edgeLayer) {
+        if (edgeLayer == null) {
+            return null;
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.drawImage(edgeLayer, 0, 0, null);
+        GraphPainter.paintVertices(g, graph);
+        g.dispose();
+        return image;
+    }
+
+    public static class Frame {
+
+        private final String description;
+        private final Graph<Vertex, DefaultWeightedEdge> graph;
+        private final BufferedImage image;
+
+        private Frame(String description, Graph<Vertex, DefaultWeightedEdge> graph, BufferedImage image) {
+            this.description = description;
+            this.graph = graph;
+            this.image = image;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public Graph<Vertex, DefaultWeightedEdge> getGraph() {
+            return graph;
+        }
+
+        //null if the painter had no size yet
+        public BufferedImage getImage() {
+            return image;
+        }
+    }
+}
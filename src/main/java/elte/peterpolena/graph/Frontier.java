@@ -0,0 +1,124 @@
+package elte.peterpolena.graph;
+
+import java.util.*;
+
+public class Frontier extends AbstractCollection<Vertex> {
+
+/*
+Q of the select monarchs algorithms with O(1) add, contains and remove.
+Without a random source the oldest vertex is selected (the order of the former ArrayList),
+with one a uniformly random vertex, reproducible for a seeded Random.
+ */
+
+    private final Random random;
+    private final Set<Vertex> ordered;
+    private final List<Vertex> items;
+    private final Map<Vertex, Integer> positions;
+
+    public Frontier() {
+        this(null);
+    }
+
+    public Frontier(Random random) {
+        this.random = random;
+        this.ordered = random == null ? new LinkedHashSet<>() : null;
+        this.items = random == null ? null : new ArrayList<>();
+        this.positions = random == null ? null : new HashMap<>();
+    }
+
+    //the vertex poll() would return, without removing it
+    public Vertex peek() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        if (random == null) {
+            return ordered.iterator().next();
+        }
+        return items.get(random.nextInt(items.size()));
+    }
+
+    public Vertex poll() {
+        Vertex vertex = peek();
+        remove(vertex);
+        return vertex;
+    }
+
+    @Override
+    public boolean add(Vertex vertex) {
+        if (random == null) {
+            return ordered.add(vertex);
+        }
+        if (positions.containsKey(vertex)) {
+            return false;
+        }
+        positions.put(vertex, items.size());
+        items.add(vertex);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return random == null ? ordered.contains(o) : positions.containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (random == null) {
+            return ordered.remove(o);
+        }
+        Integer position = positions.remove(o);
+        if (position == null) {
+            return false;
+        }
+        //swap with the last one, so removal does not shift the array
+        Vertex last = items.remove(items.size() - 1);
+        if (position < items.size()) {
+            items.set(position, last);
+            positions.put(last, position);
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (random == null) {
+            ordered.clear();
+        } else {
+            items.clear();
+            positions.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        return random == null ? ordered.size() : items.size();
+    }
+
+    @Override
+    public Iterator<Vertex> iterator() {
+        if (random == null) {
+            return ordered.iterator();
+        }
+        //iterates a snapshot, because removal reorders the array
+        Iterator<Vertex> iterator = new ArrayList<>(items).iterator();
+        return new Iterator<Vertex>() {
+            private Vertex current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Vertex next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                Frontier.this.remove(current);
+            }
+        };
+    }
+}
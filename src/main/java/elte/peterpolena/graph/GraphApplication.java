@@ -2,12 +2,21 @@ package elte.peterpolena.graph;
 
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import java.util.Arrays;
 
 @SpringBootApplication
+@EnableConfigurationProperties(GraphProperties.class)
 public class GraphApplication {
 
 	public static void main(String[] args) {
 
+		//solve jobs skip the Spring context, see SolveLauncher
+		if (args.length > 0 && "solve".equals(args[0])) {
+			SolveLauncher.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		SpringApplicationBuilder builder = new SpringApplicationBuilder(GraphApplication.class);
 		builder.headless(false).run(args);
 	}
@@ -0,0 +1,52 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+
+import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class GraphCodec {
+
+/*
+Binary form of a drawn graph, shared by StepArchive and the trace files.
+graph = vertex count, (id, x, y, rgb) per vertex, edge count, (source, target, weight) per edge
+source and target are positions in the vertex list, so the read back graph keeps the vertex order.
+ */
+
+    public static void write(DataOutput out, Graph<Vertex, DefaultWeightedEdge> graph) throws IOException {
+        VertexIndex indices = new VertexIndex(graph.vertexSet().toArray(new Vertex[0]));
+        out.writeInt(graph.vertexSet().size());
+        for (Vertex vertex : graph.vertexSet()) {
+            out.writeInt(vertex.getId());
+            out.writeInt(vertex.getX());
+            out.writeInt(vertex.getY());
+            out.writeInt(vertex.getColor().getRGB());
+        }
+        out.writeInt(graph.edgeSet().size());
+        for (DefaultWeightedEdge edge : graph.edgeSet()) {
+            out.writeInt(indices.indexOf(graph.getEdgeSource(edge)));
+            out.writeInt(indices.indexOf(graph.getEdgeTarget(edge)));
+            out.writeDouble(graph.getEdgeWeight(edge));
+        }
+    }
+
+    public static Graph<Vertex, DefaultWeightedEdge> read(DataInput in) throws IOException {
+        Graph<Vertex, DefaultWeightedEdge> graph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+        Vertex[] vertices = new Vertex[in.readInt()];
+        for (int i = 0; i < vertices.length; ++i) {
+            vertices[i] = new Vertex(in.readInt(), in.readInt(), in.readInt(), new Color(in.readInt(), true));
+            graph.addVertex(vertices[i]);
+        }
+        int edgeCount = in.readInt();
+        for (int i = 0; i < edgeCount; ++i) {
+            Vertex source = vertices[in.readInt()];
+            Vertex target = vertices[in.readInt()];
+            graph.setEdgeWeight(graph.addEdge(source, target), in.readDouble());
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,147 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.util.Pair;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.util.*;
+
+public class GraphDelta {
+
+/*
+A small topology change applied to a solved graph before AlgorithmService.reSolve.
+touched vertices = vertices whose neighborhood in Gw changes, Gw taken at the threshold of the previous solution
+Vertices are matched by id (Vertex.equals), so a removed vertex or edge endpoint is given as a vertex of the graph, or a copy of one.
+new Vertex(x, y, color) has a fresh id and matches nothing, applyTo rejects a removal it cannot find instead of skipping it.
+ */
+
+    private final Set<Vertex> addedVertices = new LinkedHashSet<>();
+    private final Set<Vertex> removedVertices = new LinkedHashSet<>();
+    private final Map<Pair<Vertex, Vertex>, Double> addedEdges = new LinkedHashMap<>();
+    private final Set<Pair<Vertex, Vertex>> removedEdges = new LinkedHashSet<>();
+
+    public GraphDelta addVertex(Vertex vertex) {
+        addedVertices.add(vertex);
+        return this;
+    }
+
+    public GraphDelta removeVertex(Vertex vertex) {
+        removedVertices.add(vertex);
+        return this;
+    }
+
+    //adding an existing edge changes its weight
+    public GraphDelta addEdge(Vertex source, Vertex target, double weight) {
+        addedEdges.put(Pair.of(source, target), weight);
+        return this;
+    }
+
+    public GraphDelta removeEdge(Vertex source, Vertex target) {
+        removedEdges.add(Pair.of(source, target));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return addedVertices.isEmpty() && removedVertices.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty();
+    }
+
+    //only removed vertices and edges added to Gw can make the threshold graph at weight easier to solve
+    public boolean mayEase(double weight) {
+        return !removedVertices.isEmpty() || addedEdges.values().stream().anyMatch(added -> added <= weight);
+    }
+
+    //Kw of Gw drops by at most 1 per removed vertex and per edge added to Gw (each splits or merges components once)
+    public int maxRequiredCentersDecrease(double weight) {
+        return removedVertices.size() + (int) addedEdges.values().stream().filter(added -> added <= weight).count();
+    }
+
+    //mutates the graph and returns the touched vertices that are still in it, the graph is left unchanged if the delta does not fit it
+    public Set<Vertex> applyTo(Graph<Vertex, DefaultWeightedEdge> graph, double threshold) {
+        Set<Vertex> touched = new HashSet<>();
+        //vertices equal by id are mapped to the instances that carry the solver state
+        Map<Vertex, Vertex> instances = new HashMap<>();
+        graph.vertexSet().forEach(vertex -> instances.put(vertex, vertex));
+        checkFits(graph, instances);
+
+        removedEdges.forEach(pair -> {
+            DefaultWeightedEdge edge = graph.getEdge(instances.get(pair.getFirst()), instances.get(pair.getSecond()));
+            if (edge == null) {
+                //already removed in the other orientation
+                return;
+            }
+            if (graph.getEdgeWeight(edge) <= threshold) {
+                touched.add(graph.getEdgeSource(edge));
+                touched.add(graph.getEdgeTarget(edge));
+            }
+            graph.removeEdge(edge);
+        });
+
+        removedVertices.forEach(removed -> {
+            Vertex vertex = instances.remove(removed);
+            //every part the removed vertex held together keeps one of its Gw neighbors
+            graph.edgesOf(vertex).stream()
+                    .filter(edge -> graph.getEdgeWeight(edge) <= threshold)
+                    .forEach(edge -> touched.add(graph.getEdgeSource(edge).equals(vertex) ? graph.getEdgeTarget(edge) : graph.getEdgeSource(edge)));
+            graph.removeVertex(vertex);
+        });
+
+        addedVertices.forEach(vertex -> {
+            if (graph.addVertex(vertex)) {
+                instances.put(vertex, vertex);
+            }
+            touched.add(instances.get(vertex));
+        });
+
+        addedEdges.forEach((pair, weight) -> {
+            Vertex source = instances.get(pair.getFirst());
+            Vertex target = instances.get(pair.getSecond());
+            DefaultWeightedEdge edge = graph.getEdge(source, target);
+            boolean wasInThresholdGraph = edge != null && graph.getEdgeWeight(edge) <= threshold;
+            if (edge == null) {
+                edge = graph.addEdge(source, target);
+            }
+            graph.setEdgeWeight(edge, weight);
+            if (wasInThresholdGraph || weight <= threshold) {
+                touched.add(source);
+                touched.add(target);
+            }
+        });
+
+        touched.removeIf(vertex -> !graph.containsVertex(vertex));
+        return touched;
+    }
+
+    private void checkFits(Graph<Vertex, DefaultWeightedEdge> graph, Map<Vertex, Vertex> instances) {
+        removedEdges.forEach(pair -> {
+            if (!instances.containsKey(pair.getFirst()) || !instances.containsKey(pair.getSecond())
+                    || graph.getEdge(instances.get(pair.getFirst()), instances.get(pair.getSecond())) == null) {
+                throw new IllegalArgumentException("Removed edge is not in the graph: " + pair);
+            }
+        });
+        removedVertices.forEach(vertex -> {
+            if (!instances.containsKey(vertex)) {
+                throw new IllegalArgumentException("Removed vertex is not in the graph: " + vertex);
+            }
+        });
+        addedEdges.keySet().forEach(pair -> {
+            if (!isEndpoint(pair.getFirst(), instances) || !isEndpoint(pair.getSecond(), instances)) {
+                throw new IllegalArgumentException("Edge endpoint is not in the graph: " + pair);
+            }
+        });
+    }
+
+    //an endpoint of an added edge is in the graph after the removals and additions
+    private boolean isEndpoint(Vertex vertex, Map<Vertex, Vertex> instances) {
+        return addedVertices.contains(vertex) || (instances.containsKey(vertex) && !removedVertices.contains(vertex));
+    }
+
+    @Override
+    public String toString() {
+        return "GraphDelta{" +
+                "addedVertices=" + addedVertices.size() +
+                ", removedVertices=" + removedVertices.size() +
+                ", addedEdges=" + addedEdges.size() +
+                ", removedEdges=" + removedEdges.size() +
+                '}';
+    }
+}
@@ -6,13 +6,12 @@ import org.jgrapht.graph.SimpleWeightedGraph;
 
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
 
 import static elte.peterpolena.graph.Config.centerX;
 import static elte.peterpolena.graph.Config.centerY;
+import static elte.peterpolena.graph.Config.denseVertexThreshold;
 import static elte.peterpolena.graph.Config.graphRadius;
 import static elte.peterpolena.graph.Config.maxWeight;
 import static elte.peterpolena.graph.Config.maxXCoordinate;
@@ -46,43 +45,68 @@ public class GraphGenerator {
         return graph;
     }
 
+    //above denseVertexThreshold vertices the complete graph is generated without edge objects
+    public Graph<Vertex, DefaultWeightedEdge> generateScaled(int centers, int clients, boolean randomizedPlacement){
+        return centers + clients > denseVertexThreshold ?
+                generateDense(centers, clients, randomizedPlacement) :
+                generate(centers, clients, randomizedPlacement);
+    }
+
+    public DenseWeightedGraph generateDense(int centers, int clients, boolean randomizedPlacement){
+        List<Vertex> vertices = randomizedPlacement ?
+                generateVerticesRandomly(centers, clients) :
+                generateVerticesInCircle(centers, clients);
+
+        float[] weights = new float[vertices.size() * (vertices.size() - 1) / 2];
+        for(int i = 0; i < weights.length; ++i){
+            weights[i] = getRandomIntInRange(minWeight, maxWeight);
+        }
+
+        return new DenseWeightedGraph(vertices, weights);
+    }
+
     private List<Vertex> generateVerticesInCircle(int centers, int clients) {
-        Set<Vertex> vertices = new HashSet<>();
+        List<Vertex> vertices = new ArrayList<>();
         List<Integer> indices = generateCenterIndices(centers, clients);
         int vertexCount = (centers + clients);
-        int index = 0;
         double angle = 360.0 / vertexCount;
-        for (double i = 0.0; i < 360.0; i += angle) {
-            int x = centerX + (int) round((graphRadius + (graphRadius * vertexCount * 0.025)) * cos(toRadians(i)));
-            int y = centerY + (int) round((graphRadius + (graphRadius * vertexCount * 0.025)) * sin(toRadians(i)));
+        //the circle grows with the vertex count, but stays inside the coordinate bounds
+        double radius = Math.min(
+                graphRadius + (graphRadius * vertexCount * 0.025),
+                Math.min(Math.min(maxXCoordinate - centerX, centerX - minXCoordinate), Math.min(maxYCoordinate - centerY, centerY - minYCoordinate)));
+        //counted by index, an accumulated angle can fall just short of 360 and add a vertex over the first one
+        for (int index = 0; index < vertexCount; ++index) {
+            double i = index * angle;
+            int x = centerX + (int) round(radius * cos(toRadians(i)));
+            int y = centerY + (int) round(radius * sin(toRadians(i)));
             if(indices.contains(index)){
-                vertices.add(new Vertex(x, y, RED));
+                vertices.add(new Vertex(index, x, y, RED));
                 indices.remove(Integer.valueOf(index));
             } else {
-                vertices.add(new Vertex(x, y, BLACK));
+                vertices.add(new Vertex(index, x, y, BLACK));
             }
-            ++index;
         }
-        return new ArrayList<>(vertices);
+        return vertices;
     }
 
     private List<Vertex> generateVerticesRandomly(int centers, int clients) {
-        Set<Vertex> vertices = new HashSet<>();
+        List<Vertex> vertices = new ArrayList<>();
         List<Integer> indices = generateCenterIndices(centers, clients);
         int vertexCount = (centers + clients);
         for(int index = 0; index < vertexCount; ++index){
             if(indices.contains(index)) {
-                vertices.add(getRandomVertex(RED));
+                vertices.add(getRandomVertex(index, RED));
                 indices.remove(Integer.valueOf(index));
             } else {
-                vertices.add(getRandomVertex(BLACK));
+                vertices.add(getRandomVertex(index, BLACK));
             }
         }
-        return new ArrayList<>(vertices);
+        return vertices;
     }
 
-    private Vertex getRandomVertex(Color color){
+    private Vertex getRandomVertex(int id, Color color){
         return new Vertex(
+                id,
                 getRandomIntInRange(minXCoordinate, maxXCoordinate),
                 getRandomIntInRange(minYCoordinate, maxYCoordinate),
                 color);
@@ -1,18 +1,45 @@
 package elte.peterpolena.graph;
 
 import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
 import org.jgrapht.graph.DefaultWeightedEdge;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
-import static elte.peterpolena.graph.Config.vertexRadius;
+import static elte.peterpolena.graph.Config.*;
 import static java.awt.Color.BLACK;
+import static java.awt.Color.GRAY;
 
 public class GraphPainter extends JPanel {
 
+/*
+The edges and weight labels are drawn once into edgeLayer, a repaint only draws the image and the vertices on top of it.
+The layer is kept while the next graph has the same topology (a snapshot of the same graph, or the same graph with as many edges),
+so stepping through the colors of one graph never redraws its edges.
+relevantEdgesOnly keeps the edges touching a highlighted vertex (center, monarch, failed center...), these depend on the step.
+The edges are walked per vertex (per highlighted vertex in relevantEdgesOnly mode), each one takes at most 2 maxDrawnEdges / V of its edges,
+so a layer costs O(maxDrawnEdges + V) whatever E is, and a DenseWeightedGraph only creates the edge objects that are looked at.
+If no vertex has more edges than its share every edge and label is drawn. Otherwise the level of detail draws the sampled edges with:
+- edges missing the visible rectangle are culled
+- at most maxEdgesPerCell edges are drawn per edgeCellSize x edgeCellSize cell (by the visible midpoint)
+- weights are only labelled if the vertices are at least minLabelSpacing pixels apart on average
+A frame rendered ahead by FramePrerenderer is drawn as it is, as long as it has the size of the panel.
+ */
+
     private Graph<Vertex, DefaultWeightedEdge> graph;
     private boolean showEdgeWeight;
+    private BufferedImage edgeLayer;
+    private int edgeLayerEdgeCount;
+    private boolean relevantEdgesOnly;
+    private BufferedImage frame;
 
     public GraphPainter(Graph graph, boolean showEdgeWeight) {
         super();
@@ -22,28 +49,103 @@ public class GraphPainter extends JPanel {
         this.setName("GraphPainter");
     }
 
+    public boolean isRelevantEdgesOnly() {
+        return relevantEdgesOnly;
+    }
+
+    public void setRelevantEdgesOnly(boolean relevantEdgesOnly) {
+        this.relevantEdgesOnly = relevantEdgesOnly;
+        edgeLayer = null;
+        frame = null;
+        repaint();
+    }
+
+    public void setGraph(Graph<Vertex, DefaultWeightedEdge> graph, boolean showEdgeWeight) {
+        if (relevantEdgesOnly || showEdgeWeight != this.showEdgeWeight || !hasTopology(this.graph, edgeLayerEdgeCount, graph)) {
+            edgeLayer = null;
+        }
+        this.graph = graph;
+        this.showEdgeWeight = showEdgeWeight;
+        this.frame = null;
+        repaint();
+    }
+
+    //the edge layer belongs to the previous graph, so it is dropped
+    public void showFrame(Graph<Vertex, DefaultWeightedEdge> graph, BufferedImage frame) {
+        this.graph = graph;
+        this.frame = frame;
+        this.edgeLayer = null;
+        repaint();
+    }
+
     @Override
     public void paintComponent(Graphics g) {
+        if (frame != null && frame.getWidth() == getWidth() && frame.getHeight() == getHeight()) {
+            g.drawImage(frame, 0, 0, null);
+            return;
+        }
         super.paintComponent(g);
 
-        graph.edgeSet().forEach(edge -> {
-            Vertex source = graph.getEdgeSource(edge);
-            Vertex target = graph.getEdgeTarget(edge);
-            g.setColor(BLACK);
-            g.drawLine(
-                    source.getX() + vertexRadius,
-                    source.getY() + vertexRadius,
-                    target.getX() + vertexRadius,
-                    target.getY() + vertexRadius);
-            if (showEdgeWeight) {
+        if (edgeLayer == null || edgeLayer.getWidth() != getWidth() || edgeLayer.getHeight() != getHeight()) {
+            edgeLayer = paintEdgeLayer(graph, getWidth(), getHeight(), getVisibleRect(), getFont(), showEdgeWeight, relevantEdgesOnly);
+            edgeLayerEdgeCount = graph.edgeSet().size();
+        }
+        if (edgeLayer != null) {
+            g.drawImage(edgeLayer, 0, 0, null);
+        }
+        paintVertices(g, graph);
+    }
+
+    static BufferedImage paintEdgeLayer(Graph<Vertex, DefaultWeightedEdge> graph, int width, int height, Rectangle viewport, Font font, boolean showEdgeWeight, boolean relevantEdgesOnly) {
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        BufferedImage layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        EdgeSample sample = sampleEdges(graph, relevantEdgesOnly, showEdgeWeight);
+        boolean levelOfDetail = sample.truncated;
+        int columns = viewport.width / edgeCellSize + 1;
+        byte[] cellCounts = levelOfDetail ? new byte[columns * (viewport.height / edgeCellSize + 1)] : null;
+        boolean labels = showEdgeWeight && (!levelOfDetail || isLabelScale(graph, viewport));
+
+        Graphics2D g = layer.createGraphics();
+        g.setFont(font);
+        g.setColor(BLACK);
+        for (int i = 0; i < sample.size; ++i) {
+            Vertex source = sample.sources[i];
+            Vertex target = sample.targets[i];
+            int x1 = source.getX() + vertexRadius;
+            int y1 = source.getY() + vertexRadius;
+            int x2 = target.getX() + vertexRadius;
+            int y2 = target.getY() + vertexRadius;
+            if (levelOfDetail) {
+                if (!viewport.intersectsLine(x1, y1, x2, y2)) {
+                    continue;
+                }
+                int middleX = clamp(getMiddleXOfEdge(x1, x2), viewport.x, viewport.x + viewport.width - 1);
+                int middleY = clamp(getMiddleYOfEdge(y1, y2), viewport.y, viewport.y + viewport.height - 1);
+                int cell = (middleY - viewport.y) / edgeCellSize * columns + (middleX - viewport.x) / edgeCellSize;
+                if (cellCounts[cell] >= maxEdgesPerCell) {
+                    continue;
+                }
+                ++cellCounts[cell];
+            }
+            g.drawLine(x1, y1, x2, y2);
+            if (labels) {
                 g.drawString(
-                        String.valueOf(graph.getEdgeWeight(edge)),
+                        String.valueOf(sample.weights[i]),
                         getMiddleXOfEdge(source.getX(), target.getX()),
                         getMiddleYOfEdge(source.getY(), target.getY()));
             }
-        });
+        }
+        g.dispose();
+        return layer;
+    }
 
+    static void paintVertices(Graphics g, Graph<Vertex, DefaultWeightedEdge> graph) {
         graph.vertexSet().forEach(vertex -> {
+            if (!g.hitClip(vertex.getX(), vertex.getY(), vertexRadius * 2, vertexRadius * 2)) {
+                return;
+            }
             g.setColor(vertex.getColor());
             g.fillOval(
                     vertex.getX(),
@@ -53,11 +155,105 @@ public class GraphPainter extends JPanel {
         });
     }
 
-    private int getMiddleXOfEdge(int x1, int x2){
+    //whether an edge layer painted for previous (with previousEdgeCount edges) can be reused for next
+    static boolean hasTopology(Graph<Vertex, DefaultWeightedEdge> previous, int previousEdgeCount, Graph<Vertex, DefaultWeightedEdge> next) {
+        if (previous instanceof GraphSnapshot && next instanceof GraphSnapshot) {
+            return ((GraphSnapshot) next).sharesTopologyWith((GraphSnapshot) previous);
+        }
+        return previous == next && next.edgeSet().size() == previousEdgeCount;
+    }
+
+    /*
+    At most quota edges of every walked vertex are looked at, a vertex with more of them is truncated.
+    An edge between two walked vertices is taken by the first one, or by the second one if the first one is truncated,
+    so every edge of a vertex that is not truncated is drawn once.
+     */
+    private static EdgeSample sampleEdges(Graph<Vertex, DefaultWeightedEdge> graph, boolean relevantEdgesOnly, boolean withWeights) {
+        List<Vertex> walked = new ArrayList<>();
+        Map<Vertex, Integer> order = new HashMap<>();
+        for (Vertex vertex : graph.vertexSet()) {
+            if (!relevantEdgesOnly || isHighlighted(vertex)) {
+                order.put(vertex, walked.size());
+                walked.add(vertex);
+            }
+        }
+        int quota = Math.max(1, 2 * maxDrawnEdges / Math.max(1, walked.size()));
+        boolean[] truncated = new boolean[walked.size()];
+        for (int position = 0; position < walked.size(); ++position) {
+            Iterator<DefaultWeightedEdge> edges = graph.edgesOf(walked.get(position)).iterator();
+            for (int seen = 0; seen < quota && edges.hasNext(); ++seen) {
+                edges.next();
+            }
+            truncated[position] = edges.hasNext();
+        }
+
+        EdgeSample sample = new EdgeSample(Math.min(quota, 64) * Math.max(1, walked.size()));
+        for (int position = 0; position < walked.size(); ++position) {
+            Vertex vertex = walked.get(position);
+            sample.truncated |= truncated[position];
+            Iterator<DefaultWeightedEdge> edges = graph.edgesOf(vertex).iterator();
+            for (int seen = 0; seen < quota && edges.hasNext(); ++seen) {
+                DefaultWeightedEdge edge = edges.next();
+                Vertex other = Graphs.getOppositeVertex(graph, edge, vertex);
+                Integer otherPosition = order.get(other);
+                boolean taken = otherPosition == null
+                        || (otherPosition > position ? !truncated[position] : truncated[otherPosition]);
+                if (taken) {
+                    sample.add(vertex, other, withWeights ? graph.getEdgeWeight(edge) : 0);
+                }
+            }
+        }
+        return sample;
+    }
+
+    //the average spacing of the vertices stands in for the zoom level
+    private static boolean isLabelScale(Graph<Vertex, DefaultWeightedEdge> graph, Rectangle viewport) {
+        int vertexCount = graph.vertexSet().size();
+        return vertexCount == 0 || Math.sqrt((double) viewport.width * viewport.height / vertexCount) >= minLabelSpacing;
+    }
+
+    private static boolean isHighlighted(Vertex vertex) {
+        return !BLACK.equals(vertex.getColor()) && !GRAY.equals(vertex.getColor());
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int getMiddleXOfEdge(int x1, int x2){
         return (int) Math.round((x1 + x2) / 2.0);
     }
 
-    private int getMiddleYOfEdge(int y1, int y2){
+    private static int getMiddleYOfEdge(int y1, int y2){
         return (int) Math.round((y1 + y2) / 2.0);
     }
+
+    private static class EdgeSample {
+
+        private Vertex[] sources;
+        private Vertex[] targets;
+        private double[] weights;
+        private int size;
+        //some vertex had more edges than its quota
+        private boolean truncated;
+
+        EdgeSample(int capacity) {
+            sources = new Vertex[capacity];
+            targets = new Vertex[capacity];
+            weights = new double[capacity];
+        }
+
+        void add(Vertex source, Vertex target, double weight) {
+            if (size == sources.length) {
+                int capacity = Math.max(16, 2 * size);
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            ++size;
+        }
+    }
 }
@@ -0,0 +1,368 @@
+package elte.peterpolena.graph;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+@ConfigurationProperties(prefix = "graph")
+public class GraphProperties {
+
+/*
+The graph.* keys of application.properties, the defaults are the former constants of Config.
+Spring binds them for the Window, current() reads the same file (and -Dgraph.* system properties) and binds it with the same Binder, without a Spring context.
+Both are validated before they are installed, an out of range value is an IllegalArgumentException.
+Config is a static view of current(), so the bound properties are installed before Config is first used.
+A layout value left empty is derived from the screen, or from defaultScreenWidth x defaultScreenHeight in a headless JVM.
+ */
+
+    private static final String RESOURCE = "/application.properties";
+    private static volatile GraphProperties current;
+
+    private final Limits limits = new Limits();
+    private final Generator generator = new Generator();
+    private final Layout layout = new Layout();
+    private final Solver solver = new Solver();
+    private final Render render = new Render();
+
+    public static GraphProperties current() {
+        GraphProperties properties = current;
+        if (properties == null) {
+            synchronized (GraphProperties.class) {
+                if (current == null) {
+                    current = load();
+                }
+                properties = current;
+            }
+        }
+        return properties;
+    }
+
+    public static void install(GraphProperties properties) {
+        properties.validate();
+        current = properties;
+    }
+
+    public static GraphProperties load() {
+        Properties file = new Properties();
+        try (InputStream in = GraphProperties.class.getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                file.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + RESOURCE, e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("graph."))
+                .forEach(key -> file.setProperty(key, System.getProperty(key)));
+        return of(file);
+    }
+
+    //the same binding as the one of the Spring context, without one
+    public static GraphProperties of(Properties file) {
+        GraphProperties properties = new GraphProperties();
+        new Binder(new MapConfigurationPropertySource(file)).bind("graph", Bindable.ofInstance(properties));
+        properties.validate();
+        return properties;
+    }
+
+    //the ranges the solver and the painter rely on, maxEdgesPerCell is counted in a byte per cell
+    public void validate() {
+        check(limits.maxVertices > 0, "graph.limits.max-vertices", limits.maxVertices);
+        check(limits.maxCenters > 0, "graph.limits.max-centers", limits.maxCenters);
+        check(limits.maxClientsPerCenter > 0, "graph.limits.max-clients-per-center", limits.maxClientsPerCenter);
+        check(limits.maxTimerDelay >= 0, "graph.limits.max-timer-delay", limits.maxTimerDelay);
+        check(generator.minWeight <= generator.maxWeight, "graph.generator.min-weight", generator.minWeight + " > graph.generator.max-weight " + generator.maxWeight);
+        check(generator.denseVertexThreshold >= 0, "graph.generator.dense-vertex-threshold", generator.denseVertexThreshold);
+        check(layout.defaultScreenWidth > 0, "graph.layout.default-screen-width", layout.defaultScreenWidth);
+        check(layout.defaultScreenHeight > 0, "graph.layout.default-screen-height", layout.defaultScreenHeight);
+        check(solver.stepStreamCapacity > 0, "graph.solver.step-stream-capacity", solver.stepStreamCapacity);
+        check(solver.solutionCacheSize >= 0, "graph.solver.solution-cache-size", solver.solutionCacheSize);
+        check(solver.stepsKeptInMemory >= 0, "graph.solver.steps-kept-in-memory", solver.stepsKeptInMemory);
+        check(render.maxDrawnEdges > 0, "graph.render.max-drawn-edges", render.maxDrawnEdges);
+        check(render.edgeCellSize > 0, "graph.render.edge-cell-size", render.edgeCellSize);
+        check(render.maxEdgesPerCell > 0 && render.maxEdgesPerCell <= Byte.MAX_VALUE, "graph.render.max-edges-per-cell", render.maxEdgesPerCell);
+        check(render.minLabelSpacing >= 0, "graph.render.min-label-spacing", render.minLabelSpacing);
+        check(render.prerenderedFrames >= 0, "graph.render.prerendered-frames", render.prerenderedFrames);
+    }
+
+    private static void check(boolean valid, String key, Object value) {
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid value of " + key + ": " + value);
+        }
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    public Generator getGenerator() {
+        return generator;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public Solver getSolver() {
+        return solver;
+    }
+
+    public Render getRender() {
+        return render;
+    }
+
+    public static class Limits {
+
+        private int maxVertices = 10;
+        private int maxCenters = 10;
+        private int maxClientsPerCenter = 10;
+        private int maxTimerDelay = 10000;
+
+        public int getMaxVertices() {
+            return maxVertices;
+        }
+
+        public void setMaxVertices(int maxVertices) {
+            this.maxVertices = maxVertices;
+        }
+
+        public int getMaxCenters() {
+            return maxCenters;
+        }
+
+        public void setMaxCenters(int maxCenters) {
+            this.maxCenters = maxCenters;
+        }
+
+        public int getMaxClientsPerCenter() {
+            return maxClientsPerCenter;
+        }
+
+        public void setMaxClientsPerCenter(int maxClientsPerCenter) {
+            this.maxClientsPerCenter = maxClientsPerCenter;
+        }
+
+        public int getMaxTimerDelay() {
+            return maxTimerDelay;
+        }
+
+        public void setMaxTimerDelay(int maxTimerDelay) {
+            this.maxTimerDelay = maxTimerDelay;
+        }
+    }
+
+    public static class Generator {
+
+        private int minWeight = 1;
+        private int maxWeight = 10;
+        //above it Window generates a DenseWeightedGraph instead of V² edge objects
+        private int denseVertexThreshold = 500;
+
+        public int getMinWeight() {
+            return minWeight;
+        }
+
+        public void setMinWeight(int minWeight) {
+            this.minWeight = minWeight;
+        }
+
+        public int getMaxWeight() {
+            return maxWeight;
+        }
+
+        public void setMaxWeight(int maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        public int getDenseVertexThreshold() {
+            return denseVertexThreshold;
+        }
+
+        public void setDenseVertexThreshold(int denseVertexThreshold) {
+            this.denseVertexThreshold = denseVertexThreshold;
+        }
+    }
+
+    public static class Layout {
+
+        private Integer screenWidth;
+        private Integer screenHeight;
+        private int defaultScreenWidth = 1920;
+        private int defaultScreenHeight = 1080;
+        private Integer minXCoordinate;
+        private Integer minYCoordinate;
+        private Integer maxXCoordinate;
+        private Integer maxYCoordinate;
+
+        //the AWT toolkit is only asked if the size is not configured and the JVM has a screen
+        public Dimension screenSize() {
+            if (screenWidth != null && screenHeight != null) {
+                return new Dimension(screenWidth, screenHeight);
+            }
+            Dimension size = GraphicsEnvironment.isHeadless()
+                    ? new Dimension(defaultScreenWidth, defaultScreenHeight)
+                    : Toolkit.getDefaultToolkit().getScreenSize();
+            return new Dimension(screenWidth != null ? screenWidth : size.width, screenHeight != null ? screenHeight : size.height);
+        }
+
+        public Integer getScreenWidth() {
+            return screenWidth;
+        }
+
+        public void setScreenWidth(Integer screenWidth) {
+            this.screenWidth = screenWidth;
+        }
+
+        public Integer getScreenHeight() {
+            return screenHeight;
+        }
+
+        public void setScreenHeight(Integer screenHeight) {
+            this.screenHeight = screenHeight;
+        }
+
+        public int getDefaultScreenWidth() {
+            return defaultScreenWidth;
+        }
+
+        public void setDefaultScreenWidth(int defaultScreenWidth) {
+            this.defaultScreenWidth = defaultScreenWidth;
+        }
+
+        public int getDefaultScreenHeight() {
+            return defaultScreenHeight;
+        }
+
+        public void setDefaultScreenHeight(int defaultScreenHeight) {
+            this.defaultScreenHeight = defaultScreenHeight;
+        }
+
+        public Integer getMinXCoordinate() {
+            return minXCoordinate;
+        }
+
+        public void setMinXCoordinate(Integer minXCoordinate) {
+            this.minXCoordinate = minXCoordinate;
+        }
+
+        public Integer getMinYCoordinate() {
+            return minYCoordinate;
+        }
+
+        public void setMinYCoordinate(Integer minYCoordinate) {
+            this.minYCoordinate = minYCoordinate;
+        }
+
+        public Integer getMaxXCoordinate() {
+            return maxXCoordinate;
+        }
+
+        public void setMaxXCoordinate(Integer maxXCoordinate) {
+            this.maxXCoordinate = maxXCoordinate;
+        }
+
+        public Integer getMaxYCoordinate() {
+            return maxYCoordinate;
+        }
+
+        public void setMaxYCoordinate(Integer maxYCoordinate) {
+            this.maxYCoordinate = maxYCoordinate;
+        }
+    }
+
+    public static class Solver {
+
+        private double bitSetDensityCutoff = 0.5;
+        private int stepStreamCapacity = 64;
+        private int solutionCacheSize = 16;
+        private int stepsKeptInMemory = 256;
+
+        public double getBitSetDensityCutoff() {
+            return bitSetDensityCutoff;
+        }
+
+        public void setBitSetDensityCutoff(double bitSetDensityCutoff) {
+            this.bitSetDensityCutoff = bitSetDensityCutoff;
+        }
+
+        public int getStepStreamCapacity() {
+            return stepStreamCapacity;
+        }
+
+        public void setStepStreamCapacity(int stepStreamCapacity) {
+            this.stepStreamCapacity = stepStreamCapacity;
+        }
+
+        public int getSolutionCacheSize() {
+            return solutionCacheSize;
+        }
+
+        public void setSolutionCacheSize(int solutionCacheSize) {
+            this.solutionCacheSize = solutionCacheSize;
+        }
+
+        public int getStepsKeptInMemory() {
+            return stepsKeptInMemory;
+        }
+
+        public void setStepsKeptInMemory(int stepsKeptInMemory) {
+            this.stepsKeptInMemory = stepsKeptInMemory;
+        }
+    }
+
+    public static class Render {
+
+        private int maxDrawnEdges = 20000;
+        private int edgeCellSize = 4;
+        private int maxEdgesPerCell = 2;
+        private int minLabelSpacing = 40;
+        private int prerenderedFrames = 4;
+
+        public int getMaxDrawnEdges() {
+            return maxDrawnEdges;
+        }
+
+        public void setMaxDrawnEdges(int maxDrawnEdges) {
+            this.maxDrawnEdges = maxDrawnEdges;
+        }
+
+        public int getEdgeCellSize() {
+            return edgeCellSize;
+        }
+
+        public void setEdgeCellSize(int edgeCellSize) {
+            this.edgeCellSize = edgeCellSize;
+        }
+
+        public int getMaxEdgesPerCell() {
+            return maxEdgesPerCell;
+        }
+
+        public void setMaxEdgesPerCell(int maxEdgesPerCell) {
+            this.maxEdgesPerCell = maxEdgesPerCell;
+        }
+
+        public int getMinLabelSpacing() {
+            return minLabelSpacing;
+        }
+
+        public void setMinLabelSpacing(int minLabelSpacing) {
+            this.minLabelSpacing = minLabelSpacing;
+        }
+
+        public int getPrerenderedFrames() {
+            return prerenderedFrames;
+        }
+
+        public void setPrerenderedFrames(int prerenderedFrames) {
+            this.prerenderedFrames = prerenderedFrames;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.awt.*;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class GraphSnapshot extends AbstractGraph<Vertex, DefaultWeightedEdge> {
+
+/*
+Read-only graph of a recorded step.
+The topology (vertex positions, edges, weights) is built once per drawn graph and shared by all of its snapshots,
+a snapshot only holds its own vertex copies, split into chunks of CHUNK_SIZE.
+next() shares every chunk in which no vertex changed its color, so it allocates O(V / CHUNK_SIZE + changed chunks)
+instead of copying V vertices and E edges.
+ */
+
+    private static final int CHUNK_SIZE = 32;
+
+    private final Topology topology;
+    private final Vertex[][] chunks;
+    private final Set<Vertex> vertexSet;
+
+    private GraphSnapshot(Topology topology, Vertex[][] chunks) {
+        this.topology = topology;
+        this.chunks = chunks;
+        this.vertexSet = new VertexSet();
+    }
+
+    //allVertices = false keeps only the endpoints of the edges if there are any, as the former copies of Result did
+    public static GraphSnapshot of(Graph<Vertex, DefaultWeightedEdge> graph, boolean allVertices, Function<Vertex, Color> colorOf) {
+        Topology topology = new Topology(graph, allVertices);
+        Vertex[][] chunks = new Vertex[(topology.vertexCount + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+        for (int chunk = 0; chunk < chunks.length; ++chunk) {
+            chunks[chunk] = new Vertex[Math.min(CHUNK_SIZE, topology.vertexCount - chunk * CHUNK_SIZE)];
+        }
+        for (Vertex vertex : graph.vertexSet()) {
+            int index = topology.indices.indexOf(vertex);
+            if (index >= 0) {
+                chunks[index / CHUNK_SIZE][index % CHUNK_SIZE] = copyWithColor(vertex, colorOf.apply(vertex));
+            }
+        }
+        return new GraphSnapshot(topology, chunks);
+    }
+
+    public static GraphSnapshot of(Graph<Vertex, DefaultWeightedEdge> graph) {
+        return graph instanceof GraphSnapshot ? (GraphSnapshot) graph : of(graph, false, Vertex::getColor);
+    }
+
+    //whether next(graph, ...) can share the topology of this snapshot
+    public boolean isSnapshotOf(Graph<Vertex, DefaultWeightedEdge> graph, boolean allVertices) {
+        return topology.isOf(graph, allVertices);
+    }
+
+    public GraphSnapshot next(Graph<Vertex, DefaultWeightedEdge> graph, Function<Vertex, Color> colorOf) {
+        if (!topology.isOf(graph, topology.allVertices)) {
+            return of(graph, topology.allVertices, colorOf);
+        }
+        Vertex[][] nextChunks = chunks.clone();
+        boolean[] copied = new boolean[chunks.length];
+        for (Vertex vertex : graph.vertexSet()) {
+            int index = topology.indices.indexOf(vertex);
+            if (index < 0) {
+                continue;
+            }
+            int chunk = index / CHUNK_SIZE;
+            Color color = colorOf.apply(vertex);
+            if (Objects.equals(nextChunks[chunk][index % CHUNK_SIZE].getColor(), color)) {
+                continue;
+            }
+            if (!copied[chunk]) {
+                nextChunks[chunk] = nextChunks[chunk].clone();
+                copied[chunk] = true;
+            }
+            nextChunks[chunk][index % CHUNK_SIZE] = copyWithColor(vertex, color);
+        }
+        return new GraphSnapshot(topology, nextChunks);
+    }
+
+    public boolean sharesTopologyWith(GraphSnapshot other) {
+        return other != null && other.topology == topology;
+    }
+
+    //positions in vertexSet() of the vertices whose color differs from base, chunks shared with base are skipped
+    int[] changedSince(GraphSnapshot base) {
+        if (!sharesTopologyWith(base)) {
+            throw new IllegalArgumentException("Snapshots of different graphs");
+        }
+        int[] changed = new int[topology.vertexCount];
+        int count = 0;
+        for (int chunk = 0; chunk < chunks.length; ++chunk) {
+            if (chunks[chunk] == base.chunks[chunk]) {
+                continue;
+            }
+            for (int i = 0; i < chunks[chunk].length; ++i) {
+                if (!Objects.equals(chunks[chunk][i].getColor(), base.chunks[chunk][i].getColor())) {
+                    changed[count++] = chunk * CHUNK_SIZE + i;
+                }
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    //the snapshot with colors[i] at positions[i], replaying changedSince
+    GraphSnapshot withColors(int[] positions, Color[] colors) {
+        Vertex[][] nextChunks = chunks.clone();
+        boolean[] copied = new boolean[chunks.length];
+        for (int i = 0; i < positions.length; ++i) {
+            int chunk = positions[i] / CHUNK_SIZE;
+            if (!copied[chunk]) {
+                nextChunks[chunk] = nextChunks[chunk].clone();
+                copied[chunk] = true;
+            }
+            nextChunks[chunk][positions[i] % CHUNK_SIZE] = copyWithColor(vertexAt(positions[i]), colors[i]);
+        }
+        return new GraphSnapshot(topology, nextChunks);
+    }
+
+    private static Vertex copyWithColor(Vertex vertex, Color color) {
+        Vertex copy = new Vertex(vertex);
+        copy.setColor(color);
+        return copy;
+    }
+
+    Vertex vertexAt(int index) {
+        return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> getAllEdges(Vertex sourceVertex, Vertex targetVertex) {
+        DefaultWeightedEdge edge = getEdge(sourceVertex, targetVertex);
+        return edge == null ? Collections.emptySet() : Collections.singleton(edge);
+    }
+
+    @Override
+    public DefaultWeightedEdge getEdge(Vertex sourceVertex, Vertex targetVertex) {
+        int source = topology.indices.indexOf(sourceVertex);
+        int target = topology.indices.indexOf(targetVertex);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+        for (int edge : topology.incidentEdges[source]) {
+            if (topology.sources[edge] + topology.targets[edge] - source == target) {
+                return topology.edges[edge];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Supplier<Vertex> getVertexSupplier() {
+        return null;
+    }
+
+    @Override
+    public Supplier<DefaultWeightedEdge> getEdgeSupplier() {
+        return null;
+    }
+
+    @Override
+    public DefaultWeightedEdge addEdge(Vertex sourceVertex, Vertex targetVertex) {
+        throw new UnsupportedOperationException("GraphSnapshot is read-only");
+    }
+
+    @Override
+    public boolean addEdge(Vertex sourceVertex, Vertex targetVertex, DefaultWeightedEdge edge) {
+        throw new UnsupportedOperationException("GraphSnapshot is read-only");
+    }
+
+    @Override
+    public Vertex addVertex() {
+        throw new UnsupportedOperationException("GraphSnapshot is read-only");
+    }
+
+    @Override
+    public boolean addVertex(Vertex vertex) {
+        throw new UnsupportedOperationException("GraphSnapshot is read-only");
+    }
+
+    @Override
+    public boolean containsEdge(Vertex sourceVertex, Vertex targetVertex) {
+        return getEdge(sourceVertex, targetVertex) != null;
+    }
+
+    @Override
+    public boolean containsEdge(DefaultWeightedEdge edge) {
+        return edge instanceof Edge && ((Edge) edge).topology == topology;
+    }
+
+    @Override
+    public boolean containsVertex(Vertex vertex) {
+        return topology.indices.contains(vertex);
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> edgeSet() {
+        return topology.edgeSet;
+    }
+
+    @Override
+    public int degreeOf(Vertex vertex) {
+        return topology.incidentEdges[indexOf(vertex)].length;
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> edgesOf(Vertex vertex) {
+        int[] incident = topology.incidentEdges[indexOf(vertex)];
+        Set<DefaultWeightedEdge> edges = new LinkedHashSet<>();
+        for (int edge : incident) {
+            edges.add(topology.edges[edge]);
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    @Override
+    public int inDegreeOf(Vertex vertex) {
+        return degreeOf(vertex);
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> incomingEdgesOf(Vertex vertex) {
+        return edgesOf(vertex);
+    }
+
+    @Override
+    public int outDegreeOf(Vertex vertex) {
+        return degreeOf(vertex);
+    }
+
+    @Override
+    public Set<DefaultWeightedEdge> outgoingEdgesOf(Vertex vertex) {
+        return edgesOf(vertex);
+    }
+
+    @Override
+    public DefaultWeightedEdge removeEdge(Vertex sourceVertex, Vertex targetVertex) {
+        throw new UnsupportedOperationException("GraphSnapshot is read-only");
+    }
+
+    @Override
+    public boolean removeEdge(DefaultWeightedEdge edge) {
+        throw new UnsupportedOperationException("GraphSnapshot is read-only");
+    }
+
+    @Override
+    public boolean removeVertex(Vertex vertex) {
+        throw new UnsupportedOperationException("GraphSnapshot is read-only");
+    }
+
+    @Override
+    public Set<Vertex> vertexSet() {
+        return vertexSet;
+    }
+
+    @Override
+    public Vertex getEdgeSource(DefaultWeightedEdge edge) {
+        return vertexAt(topology.sources[((Edge) edge).index]);
+    }
+
+    @Override
+    public Vertex getEdgeTarget(DefaultWeightedEdge edge) {
+        return vertexAt(topology.targets[((Edge) edge).index]);
+    }
+
+    @Override
+    public GraphType getType() {
+        return new DefaultGraphType.Builder()
+                .undirected()
+                .allowSelfLoops(false)
+                .allowMultipleEdges(false)
+                .weighted(true)
+                .modifiable(false)
+                .build();
+    }
+
+    @Override
+    public double getEdgeWeight(DefaultWeightedEdge edge) {
+        return topology.weights[((Edge) edge).index];
+    }
+
+    @Override
+    public void setEdgeWeight(DefaultWeightedEdge edge, double weight) {
+        throw new UnsupportedOperationException("GraphSnapshot is read-only");
+    }
+
+    private int indexOf(Vertex vertex) {
+        int index = topology.indices.indexOf(vertex);
+        if (index < 0) {
+            throw new IllegalArgumentException("No such vertex in graph: " + vertex);
+        }
+        return index;
+    }
+
+    private static class Topology {
+
+        //weak, so a snapshot does not keep the graph of the solver alive
+        private final WeakReference<Graph<Vertex, DefaultWeightedEdge>> graph;
+        private final boolean allVertices;
+        private final int sourceVertexCount;
+        private final int sourceEdgeCount;
+        private final int vertexCount;
+        private final VertexIndex indices;
+        private final int[] sources;
+        private final int[] targets;
+        private final double[] weights;
+        private final Edge[] edges;
+        private final int[][] incidentEdges;
+        private final Set<DefaultWeightedEdge> edgeSet;
+
+        private Topology(Graph<Vertex, DefaultWeightedEdge> graph, boolean allVertices) {
+            this.graph = new WeakReference<>(graph);
+            this.allVertices = allVertices;
+            this.sourceVertexCount = graph.vertexSet().size();
+            this.sourceEdgeCount = graph.edgeSet().size();
+
+            Set<Vertex> vertices = new LinkedHashSet<>();
+            graph.edgeSet().forEach(edge -> {
+                vertices.add(graph.getEdgeSource(edge));
+                vertices.add(graph.getEdgeTarget(edge));
+            });
+            if (allVertices || vertices.isEmpty()) {
+                vertices.addAll(graph.vertexSet());
+            }
+            Vertex[] vertexArray = vertices.toArray(new Vertex[0]);
+            this.vertexCount = vertexArray.length;
+            this.indices = new VertexIndex(vertexArray);
+
+            this.sources = new int[sourceEdgeCount];
+            this.targets = new int[sourceEdgeCount];
+            this.weights = new double[sourceEdgeCount];
+            this.edges = new Edge[sourceEdgeCount];
+            int[] degrees = new int[vertexCount];
+            int index = 0;
+            for (DefaultWeightedEdge edge : graph.edgeSet()) {
+                sources[index] = indices.indexOf(graph.getEdgeSource(edge));
+                targets[index] = indices.indexOf(graph.getEdgeTarget(edge));
+                weights[index] = graph.getEdgeWeight(edge);
+                edges[index] = new Edge(this, index);
+                ++degrees[sources[index]];
+                ++degrees[targets[index]];
+                ++index;
+            }
+            this.incidentEdges = new int[vertexCount][];
+            for (int i = 0; i < vertexCount; ++i) {
+                incidentEdges[i] = new int[degrees[i]];
+                degrees[i] = 0;
+            }
+            for (int edge = 0; edge < edges.length; ++edge) {
+                incidentEdges[sources[edge]][degrees[sources[edge]]++] = edge;
+                incidentEdges[targets[edge]][degrees[targets[edge]]++] = edge;
+            }
+            this.edgeSet = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(edges)));
+        }
+
+        //the counts guard against a graph that was modified since the topology was built
+        private boolean isOf(Graph<Vertex, DefaultWeightedEdge> graph, boolean allVertices) {
+            return this.graph.get() == graph
+                    && this.allVertices == allVertices
+                    && sourceVertexCount == graph.vertexSet().size()
+                    && sourceEdgeCount == graph.edgeSet().size();
+        }
+    }
+
+    private static class Edge extends DefaultWeightedEdge {
+
+        private final transient Topology topology;
+        private final int index;
+
+        private Edge(Topology topology, int index) {
+            this.topology = topology;
+            this.index = index;
+        }
+    }
+
+    private class VertexSet extends AbstractSet<Vertex> {
+
+        @Override
+        public Iterator<Vertex> iterator() {
+            return new Iterator<Vertex>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < topology.vertexCount;
+                }
+
+                @Override
+                public Vertex next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return vertexAt(index++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return topology.vertexCount;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Vertex && topology.indices.contains((Vertex) o);
+        }
+    }
+}
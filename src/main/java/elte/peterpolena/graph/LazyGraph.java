@@ -0,0 +1,58 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.util.function.Supplier;
+
+public class LazyGraph implements Supplier<Graph<Vertex, DefaultWeightedEdge>> {
+
+/*
+A recorded step that is materialized the first time it is drawn, afterwards the same graph is returned.
+An uncached step is materialized again on every draw, so it never holds its graph.
+ */
+
+    private Supplier<Graph<Vertex, DefaultWeightedEdge>> supplier;
+    private Graph<Vertex, DefaultWeightedEdge> graph;
+    private final boolean cached;
+
+    public LazyGraph(Supplier<Graph<Vertex, DefaultWeightedEdge>> supplier) {
+        this(supplier, true);
+    }
+
+    private LazyGraph(Supplier<Graph<Vertex, DefaultWeightedEdge>> supplier, boolean cached) {
+        this.supplier = supplier;
+        this.cached = cached;
+    }
+
+    public static LazyGraph of(Graph<Vertex, DefaultWeightedEdge> graph) {
+        LazyGraph lazyGraph = new LazyGraph(null);
+        lazyGraph.graph = graph;
+        return lazyGraph;
+    }
+
+    public static LazyGraph uncached(Supplier<Graph<Vertex, DefaultWeightedEdge>> supplier) {
+        return new LazyGraph(supplier, false);
+    }
+
+    @Override
+    public synchronized Graph<Vertex, DefaultWeightedEdge> get() {
+        if (!cached) {
+            return supplier.get();
+        }
+        if (graph == null) {
+            graph = supplier.get();
+            supplier = null;
+        }
+        return graph;
+    }
+
+    //the graph without keeping it, a step that is not materialized yet stays lazy (used to trace a step)
+    public synchronized Graph<Vertex, DefaultWeightedEdge> peek() {
+        return graph != null ? graph : supplier.get();
+    }
+
+    public synchronized boolean isMaterialized() {
+        return graph != null;
+    }
+}
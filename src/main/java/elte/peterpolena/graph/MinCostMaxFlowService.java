@@ -10,6 +10,21 @@ public class MinCostMaxFlowService {
     private int N, cap[][], flow[][], cost[][], dad[], dist[], pi[];
 
     private final int INF = Integer.MAX_VALUE / 2 - 1;
+    private final CancellationToken cancellationToken;
+    private FlowNetwork network;
+
+    public MinCostMaxFlowService() {
+        this(new CancellationToken());
+    }
+
+    public MinCostMaxFlowService(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    //the network of the last getFlow call, for drawing it as a bipartite graph
+    public FlowNetwork getNetwork() {
+        return network;
+    }
 
     private boolean search(int source, int sink) {
         Arrays.fill(found, false);
@@ -59,6 +74,7 @@ public class MinCostMaxFlowService {
 
         int totflow = 0, totcost = 0;
         while (search(source, sink)) {
+            cancellationToken.check("[ASSIGN DOMAINS] Minimum Cost Maximum Flow");
             int amt = INF;
             for (int x = sink; x != source; x = dad[x])
                 amt = Math.min(amt, flow[x][dad[x]] != 0 ? flow[x][dad[x]] :
@@ -79,15 +95,20 @@ public class MinCostMaxFlowService {
     }
 
     public Map<Vertex, Set<Vertex>> getFlow(Graph<Vertex, DefaultWeightedEdge> graph, Set<Vertex> monarchs, int maxClientsPerCenter, boolean majorNeeded) {
+        return getFlow(graph, null, monarchs, maxClientsPerCenter, majorNeeded);
+    }
+
+    public Map<Vertex, Set<Vertex>> getFlow(Graph<Vertex, DefaultWeightedEdge> graph, BitSetAdjacency adjacency, Set<Vertex> monarchs, int maxClientsPerCenter, boolean majorNeeded) {
         Map<Vertex, Set<Vertex>> ret = new HashMap<>();
         N = graph.vertexSet().size() + monarchs.size() + 2;
         Map<Vertex, Integer> monarchIndexes = new HashMap<>();
         Integer index = 1;
         for(Vertex m : monarchs)
             monarchIndexes.put(m, index++);
-        Map<Vertex, Integer> vertexIndexes = new HashMap<>();
-        for(Vertex v : graph.vertexSet())
-            vertexIndexes.put(v, index++);
+        //the vertices follow the monarchs, vertex i of the array is node firstVertex + i
+        Vertex[] vertices = graph.vertexSet().toArray(new Vertex[0]);
+        VertexIndex vertexIndexes = new VertexIndex(vertices);
+        int firstVertex = index;
         int cap[][] = new int[N][N];
         int cost[][] = new int[N][N];
         for(int i = 0; i < N; i++)
@@ -97,12 +118,24 @@ public class MinCostMaxFlowService {
                 cost[i][j] = 0;
             }
 
+        Vertex[] monarchArray = new Vertex[monarchs.size()];
+        int[][] neighbors = new int[monarchs.size()][];
         monarchIndexes.forEach((v, i) -> {
-            Utils.getAdjacentVerticesUpToDistance(graph, majorNeeded ? v.getMajor() : v, 2).forEach(x -> {
-                cap[i][vertexIndexes.get(x)] = 1;
-                cost[i][vertexIndexes.get(x)] = v == x ? 0 : 1;
-            });
+            Vertex source = majorNeeded ? v.getMajor() : v;
+            List<Vertex> adjacentVertices = adjacency != null ?
+                    adjacency.getAdjacentVerticesUpToDistance(source, 2) :
+                    Utils.getAdjacentVerticesUpToDistance(graph, source, 2);
+            monarchArray[i - 1] = v;
+            neighbors[i - 1] = new int[adjacentVertices.size()];
+            for (int k = 0; k < adjacentVertices.size(); k++) {
+                Vertex x = adjacentVertices.get(k);
+                int j = firstVertex + vertexIndexes.indexOf(x);
+                neighbors[i - 1][k] = j - firstVertex;
+                cap[i][j] = 1;
+                cost[i][j] = v == x ? 0 : 1;
+            }
         });
+        network = new FlowNetwork(monarchArray, vertices, neighbors, maxClientsPerCenter);
 
         //adding (s, m)
         monarchIndexes.values().forEach(i -> {
@@ -110,19 +143,19 @@ public class MinCostMaxFlowService {
             cost[0][i] = 1;
         });
         //adding (v, t)
-        vertexIndexes.values().forEach(i -> {
+        for (int i = firstVertex; i < firstVertex + vertices.length; i++) {
             cap[i][N - 1] = 1;
             cost[i][N - 1] = 1;
-        });
+        }
         getMaxFlow(cap, cost, 0, N - 1);
 
         monarchIndexes.forEach((m, i) ->
                 {
                     Set<Vertex> flowsTo = new HashSet<>();
-                    vertexIndexes.forEach((v, j) -> {
-                        if(flow[i][j] != 0)
-                            flowsTo.add(v);
-                    });
+                    for (int j = 0; j < vertices.length; j++) {
+                        if(flow[i][firstVertex + j] != 0)
+                            flowsTo.add(vertices[j]);
+                    }
                     ret.put(m, flowsTo);
                 });
         return ret;
@@ -0,0 +1,98 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.util.*;
+
+public class MonarchCoverage {
+
+/*
+Multi-source BFS over the major monarchs M1 of the conservative select monarchs algorithm.
+distance(v) = min over m in M1 of the hop distance d(m, v), only tracked up to radius
+uncovered = |{v : distance(v) > radius}|, the vertices outside every Γradius(m)
+boundary = {v : distance(v) == radius}, the vertices of Nradius(m) for some m and outside every Γradius-1(m)
+A new monarch only relaxes the vertices it gets strictly closer to, so every vertex is settled at most radius times.
+The boundary is an indexed list (swap remove), a pick starts at a random position and takes the first candidate from there.
+ */
+
+    private final Graph<Vertex, DefaultWeightedEdge> graph;
+    private final int radius;
+    private final Random random;
+    private final Map<Vertex, Integer> distances = new HashMap<>();
+    private final List<Vertex> boundary = new ArrayList<>();
+    private final Map<Vertex, Integer> boundaryPositions = new HashMap<>();
+    private int uncovered;
+
+    public MonarchCoverage(Graph<Vertex, DefaultWeightedEdge> graph, int radius, Random random) {
+        this.graph = graph;
+        this.radius = radius;
+        this.random = random;
+        this.uncovered = graph.vertexSet().size();
+    }
+
+    public void addSource(Vertex source) {
+        Deque<Vertex> queue = new ArrayDeque<>();
+        relax(source, 0, queue);
+        while (!queue.isEmpty()) {
+            Vertex vertex = queue.poll();
+            int distance = distances.get(vertex);
+            if (distance == radius) {
+                continue;
+            }
+            for (Vertex neighbor : Graphs.neighborListOf(graph, vertex)) {
+                relax(neighbor, distance + 1, queue);
+            }
+        }
+    }
+
+    //hasUnmarkedNodesFurther(graph, M1, radius)
+    public boolean hasUncoveredVertices() {
+        return uncovered > 0;
+    }
+
+    public boolean isOnBoundary(Vertex vertex) {
+        return distances.getOrDefault(vertex, Integer.MAX_VALUE) == radius;
+    }
+
+    //a random vertex at distance radius from M1 that is one of the candidates, candidates.contains is expected to be O(1)
+    public Vertex getBoundaryVertex(Collection<Vertex> candidates) {
+        int size = boundary.size();
+        int start = size == 0 ? 0 : random.nextInt(size);
+        for (int i = 0; i < size; ++i) {
+            Vertex vertex = boundary.get((start + i) % size);
+            if (candidates.contains(vertex)) {
+                return vertex;
+            }
+        }
+        throw new NoSuchElementException("No candidate at distance " + radius);
+    }
+
+    private void relax(Vertex vertex, int distance, Deque<Vertex> queue) {
+        Integer previous = distances.get(vertex);
+        if (previous != null && previous <= distance) {
+            return;
+        }
+        if (previous == null) {
+            --uncovered;
+        } else if (previous == radius) {
+            removeFromBoundary(vertex);
+        }
+        if (distance == radius) {
+            boundaryPositions.put(vertex, boundary.size());
+            boundary.add(vertex);
+        }
+        distances.put(vertex, distance);
+        queue.add(vertex);
+    }
+
+    private void removeFromBoundary(Vertex vertex) {
+        int position = boundaryPositions.remove(vertex);
+        Vertex last = boundary.remove(boundary.size() - 1);
+        if (position < boundary.size()) {
+            boundary.set(position, last);
+            boundaryPositions.put(last, position);
+        }
+    }
+}
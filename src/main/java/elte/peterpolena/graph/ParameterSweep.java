@@ -0,0 +1,233 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.ConnectivityInspector;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static elte.peterpolena.graph.Utils.*;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+public class ParameterSweep {
+
+/*
+Solves one graph for a grid of (K, L, α).
+Shared, parameter independent work: the distinct weights and the connected components of every Gw that is probed,
+used for the Kw bounds and by the assignment of every grid point that reaches the threshold.
+Gw itself is built per grid point, its vertices belong to the copy of the grid point and carry the state of that solve.
+Kw(w, L) = Σ ceil(|C| / L) over the components C of Gw, it does not increase with w,
+so the first threshold with Kw <= K is found by binary search and the thresholds below it are skipped.
+Every grid point is solved on its own copy of the graph, so the grid runs in parallel.
+Minimum K search: Kw at the largest threshold is a lower bound for K, feasibility is taken to be monotone in K,
+the upper bound is found by doubling from the lower bound and the rest by binary search.
+ */
+
+    private final Graph<Vertex, DefaultWeightedEdge> graph;
+    private final List<Double> weights;
+    private final Map<Integer, List<Set<Vertex>>> thresholdComponents = new ConcurrentHashMap<>();
+
+    public ParameterSweep(Graph<Vertex, DefaultWeightedEdge> graph) {
+        this.graph = graph;
+        this.weights = getDistinctWeights(graph);
+    }
+
+    public List<Double> getWeights() {
+        return weights;
+    }
+
+    public List<Row> run(List<Integer> maxCentersValues,
+                         List<Integer> maxClientsPerCenterValues,
+                         List<Integer> maxFailedCentersValues,
+                         boolean isConservative,
+                         boolean withFailure) {
+
+        System.out.println("\nSTART PARAMETER SWEEP\n");
+
+        List<int[]> grid = new ArrayList<>();
+        maxCentersValues.forEach(maxCenters ->
+                maxClientsPerCenterValues.forEach(maxClientsPerCenter ->
+                        maxFailedCentersValues.forEach(maxFailedCenters ->
+                                grid.add(new int[]{maxCenters, maxClientsPerCenter, maxFailedCenters}))));
+
+        System.out.println("\tWeights: " + weights.size());
+        System.out.println("\tGrid points: " + grid.size());
+
+        List<Row> rows = grid
+                .parallelStream()
+                .map(parameters -> solve(parameters[0], parameters[1], parameters[2], isConservative, withFailure))
+                .collect(toList());
+
+        System.out.println("\tComponent analyses: " + thresholdComponents.size());
+        System.out.println("\nEND PARAMETER SWEEP\n");
+        return rows;
+    }
+
+    //the fewest centers that solve the graph for L and α, empty if even one center per vertex does not
+    public Optional<Row> minimumMaxCenters(int maxClientsPerCenter, int maxFailedCenters, boolean isConservative, boolean withFailure) {
+
+        System.out.println("\nSTART MINIMUM K SEARCH\n");
+
+        if (weights.isEmpty()) {
+            System.out.println("\nEND MINIMUM K SEARCH\n");
+            return Optional.empty();
+        }
+
+        int vertexCount = graph.vertexSet().size();
+        int low = Math.max(1, requiredCenters(weights.size() - 1, maxClientsPerCenter));
+        System.out.println("\tKw lower bound: " + low);
+
+        Map<Integer, Row> probes = new HashMap<>();
+        //invariant: every K < low is infeasible
+        int high = low;
+        while (!probe(probes, high, maxClientsPerCenter, maxFailedCenters, isConservative, withFailure).isFeasible()) {
+            if (high >= vertexCount) {
+                System.out.println("\tProbes: " + probes.size());
+                System.out.println("\nEND MINIMUM K SEARCH\n");
+                return Optional.empty();
+            }
+            low = high + 1;
+            high = Math.min(vertexCount, high * 2);
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (probe(probes, middle, maxClientsPerCenter, maxFailedCenters, isConservative, withFailure).isFeasible()) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        System.out.println("\tMinimum K: " + high);
+        System.out.println("\tProbes: " + probes.size());
+        System.out.println("\nEND MINIMUM K SEARCH\n");
+        return Optional.of(probes.get(high));
+    }
+
+    private Row probe(Map<Integer, Row> probes, int maxCenters, int maxClientsPerCenter, int maxFailedCenters, boolean isConservative, boolean withFailure) {
+        return probes.computeIfAbsent(maxCenters, k -> solve(k, maxClientsPerCenter, maxFailedCenters, isConservative, withFailure));
+    }
+
+    public static String toTable(List<Row> rows) {
+        return "K\tL\tα\tfeasible\tthreshold\tcenters\tmillis\n" +
+                rows.stream().map(Row::toTableLine).collect(joining("\n"));
+    }
+
+    private Row solve(int maxCenters, int maxClientsPerCenter, int maxFailedCenters, boolean isConservative, boolean withFailure) {
+        long start = System.nanoTime();
+        int firstThresholdIndex = firstThresholdIndexWithinBound(maxCenters, maxClientsPerCenter);
+        if (firstThresholdIndex == weights.size()) {
+            return new Row(maxCenters, maxClientsPerCenter, maxFailedCenters, false, Double.NaN, 0, elapsedMillis(start));
+        }
+
+        Graph<Vertex, DefaultWeightedEdge> graphCopy = copy(graph);
+        AlgorithmService algorithmService = new AlgorithmService();
+        algorithmService.setRecording(false);
+        Result result = algorithmService.mainAlgorithm(graphCopy, weights, firstThresholdIndex, this::components, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, withFailure);
+        if (result == null) {
+            return new Row(maxCenters, maxClientsPerCenter, maxFailedCenters, false, Double.NaN, 0, elapsedMillis(start));
+        }
+        return new Row(maxCenters, maxClientsPerCenter, maxFailedCenters, true, result.getThreshold(), getCentersCount(graphCopy), elapsedMillis(start));
+    }
+
+    int firstThresholdIndexWithinBound(int maxCenters, int maxClientsPerCenter) {
+        int low = 0;
+        int high = weights.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (requiredCenters(middle, maxClientsPerCenter) <= maxCenters) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    int requiredCenters(int thresholdIndex, int maxClientsPerCenter) {
+        return getRequiredCenters(getRequiredCentersPerComponent(maxClientsPerCenter, getComponentNodeCount(components(thresholdIndex))));
+    }
+
+    //shared by the Kw bounds and every grid point that reaches the threshold
+    List<Set<Vertex>> components(int thresholdIndex) {
+        return thresholdComponents.computeIfAbsent(thresholdIndex,
+                index -> new ConnectivityInspector<>(getThresholdSubGraph(graph, weights.get(index))).connectedSets());
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    public static class Row {
+
+        private final int maxCenters;
+        private final int maxClientsPerCenter;
+        private final int maxFailedCenters;
+        private final boolean feasible;
+        private final double threshold;
+        private final long centers;
+        private final long millis;
+
+        private Row(int maxCenters, int maxClientsPerCenter, int maxFailedCenters, boolean feasible, double threshold, long centers, long millis) {
+            this.maxCenters = maxCenters;
+            this.maxClientsPerCenter = maxClientsPerCenter;
+            this.maxFailedCenters = maxFailedCenters;
+            this.feasible = feasible;
+            this.threshold = threshold;
+            this.centers = centers;
+            this.millis = millis;
+        }
+
+        public int getMaxCenters() {
+            return maxCenters;
+        }
+
+        public int getMaxClientsPerCenter() {
+            return maxClientsPerCenter;
+        }
+
+        public int getMaxFailedCenters() {
+            return maxFailedCenters;
+        }
+
+        public boolean isFeasible() {
+            return feasible;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        public long getCenters() {
+            return centers;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        private String toTableLine() {
+            return maxCenters + "\t" + maxClientsPerCenter + "\t" + maxFailedCenters + "\t" + feasible + "\t" + threshold + "\t" + centers + "\t" + millis;
+        }
+
+        @Override
+        public String toString() {
+            return "Row{" +
+                    "K=" + maxCenters +
+                    ", L=" + maxClientsPerCenter +
+                    ", α=" + maxFailedCenters +
+                    ", feasible=" + feasible +
+                    ", threshold=" + threshold +
+                    ", centers=" + centers +
+                    ", millis=" + millis +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package elte.peterpolena.graph;
+
+public interface ProgressListener {
+
+    ProgressListener NONE = (thresholdIndex, thresholdCount, phase) -> {};
+
+    void onProgress(int thresholdIndex, int thresholdCount, String phase);
+}
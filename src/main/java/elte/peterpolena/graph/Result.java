@@ -4,18 +4,40 @@ import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.graph.SimpleWeightedGraph;
 
+import java.awt.Color;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import static java.awt.Color.MAGENTA;
-import static java.awt.Color.PINK;
+import static java.awt.Color.*;
 
 public class Result {
 
+	private static final int TRACKED_GRAPHS = 8;
+
+	public enum Status {
+		SOLVED,
+		TIMED_OUT,
+		CANCELLED
+	}
+
+	private Status status = Status.SOLVED;
+	private double threshold;
 	private Graph<Vertex, DefaultWeightedEdge> originalGraph;
-	private List<Graph<Vertex, DefaultWeightedEdge>> graphsToDraw;
+	private List<LazyGraph> graphsToDraw;
 	private List<String> descriptions;
+	private StepStream stepStream;
+	private boolean recording = true;
+	private List<GraphSnapshot> latestSnapshots = new ArrayList<>();
+	private int stepsKeptInMemory = Config.stepsKeptInMemory;
+	private StepArchive archive;
+	private TraceWriter traceWriter;
+	private final Map<Double, Integer> requiredCentersLowerBounds = new HashMap<>();
 
     public Result() {
 		this.originalGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
@@ -27,69 +49,137 @@ public class Result {
 		return originalGraph;
     }
 
+	//a step is materialized when it is first read from this list
 	public List<Graph<Vertex, DefaultWeightedEdge>> getGraphsToDraw() {
-		return this.graphsToDraw;
+		return new AbstractList<Graph<Vertex, DefaultWeightedEdge>>() {
+			@Override
+			public Graph<Vertex, DefaultWeightedEdge> get(int index) {
+				return graphsToDraw.get(index).get();
+			}
+
+			@Override
+			public int size() {
+				return graphsToDraw.size();
+			}
+		};
+	}
+
+	//replays the recorded steps without materializing them
+	public void publishTo(StepStream stepStream) {
+		for (int i = 0; i < graphsToDraw.size(); ++i) {
+			stepStream.publish(descriptions.get(i), graphsToDraw.get(i));
+		}
 	}
 
 	public List<String> getDescriptions() {
 		return this.descriptions;
 	}
 
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	public void setThreshold(double threshold) {
+		this.threshold = threshold;
+	}
+
+	public void setStepStream(StepStream stepStream) {
+		this.stepStream = stepStream;
+	}
+
+	public boolean isRecording() {
+		return recording;
+	}
+
+	public void setRecording(boolean recording) {
+		this.recording = recording;
+	}
+
+	//every recorded step is also written to the trace while the algorithm runs
+	public void setTraceWriter(TraceWriter traceWriter) {
+		this.traceWriter = traceWriter;
+	}
+
+	//writes the steps recorded so far, for a result that was not traced while it was recorded
+	public void traceTo(TraceWriter traceWriter) {
+		traceWriter.writeOriginalGraph(originalGraph);
+		for (int i = 0; i < graphsToDraw.size(); ++i) {
+			traceWriter.writeStep(descriptions.get(i), graphsToDraw.get(i).peek());
+		}
+	}
+
+	//Kw, or a lower bound of it, of every threshold tried, the ones below getThreshold() failed
+	public void setRequiredCentersLowerBound(double threshold, int requiredCenters) {
+		requiredCentersLowerBounds.put(threshold, requiredCenters);
+	}
+
+	//null if the threshold was not tried
+	public Integer getRequiredCentersLowerBound(double threshold) {
+		return requiredCentersLowerBounds.get(threshold);
+	}
+
+	//the most recent steps stay in memory, older ones are moved to a temp file and read back when drawn
+	public void setStepsKeptInMemory(int stepsKeptInMemory) {
+		this.stepsKeptInMemory = stepsKeptInMemory;
+	}
+
+	//a dense graph keeps its compact copy, without recording and tracing nothing is copied and the graph itself is kept
 	public void setOriginalGraph(final Graph<Vertex, DefaultWeightedEdge> originalGraph) {
-        originalGraph.edgeSet().forEach(edge -> {
-            Vertex source = new Vertex(originalGraph.getEdgeSource(edge));
-            Vertex target = new Vertex(originalGraph.getEdgeTarget(edge));
-			this.originalGraph.addVertex(source);
-			this.originalGraph.addVertex(target);
-			this.originalGraph.addEdge(source, target);
-			this.originalGraph.setEdgeWeight(source, target, originalGraph.getEdgeWeight(edge));
-        });
+		if (originalGraph instanceof DenseWeightedGraph) {
+			this.originalGraph = ((DenseWeightedGraph) originalGraph).copyVertices();
+		} else if (!recording && traceWriter == null) {
+			this.originalGraph = originalGraph;
+		} else {
+			this.originalGraph = snapshot(originalGraph, false, Vertex::getColor);
+		}
+		if (traceWriter != null) {
+			traceWriter.writeOriginalGraph(this.originalGraph);
+		}
     }
 
 	public void addGraphToDraw(final String description, final Graph<Vertex, DefaultWeightedEdge> graphToDraw) {
-		System.out.println("\t\t\tADDING " + description);
-		Graph<Vertex, DefaultWeightedEdge> copyOfGraphToDraw = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
-		if (!graphToDraw.edgeSet().isEmpty()) {
-			graphToDraw.edgeSet().forEach(edge -> {
-				Vertex source = new Vertex(graphToDraw.getEdgeSource(edge));
-				Vertex target = new Vertex(graphToDraw.getEdgeTarget(edge));
-				copyOfGraphToDraw.addVertex(source);
-				copyOfGraphToDraw.addVertex(target);
-				copyOfGraphToDraw.addEdge(source, target);
-				copyOfGraphToDraw.setEdgeWeight(source, target, graphToDraw.getEdgeWeight(edge));
-			});
-			add(description, copyOfGraphToDraw);
-		} else if (!graphToDraw.vertexSet().isEmpty()) {
-			graphToDraw.vertexSet().forEach(vertex -> copyOfGraphToDraw.addVertex(new Vertex(vertex)));
-			add(description, copyOfGraphToDraw);
+		addGraphToDraw(description, graphToDraw, Vertex::getColor);
+	}
+
+	public void addGraphToDraw(final String description, final Graph<Vertex, DefaultWeightedEdge> graphToDraw, Function<Vertex, Color> colorOf) {
+		if (!recording || graphToDraw.vertexSet().isEmpty()) {
+			return;
 		}
+		System.out.println("\t\t\tADDING " + description);
+		add(description, LazyGraph.of(snapshot(graphToDraw, false, colorOf)));
 	}
 
 	public void addGraphWithMonarchsToDraw(final String description, final Graph<Vertex, DefaultWeightedEdge> graphToDraw, Set<Vertex> minors, Set<Vertex> majors) {
+		addGraphToDraw(description, graphToDraw, vertex -> minors.contains(vertex) ? PINK : majors.contains(vertex) ? MAGENTA : vertex.getColor());
+	}
+
+	//vertices in black, the others in gray, exceptionVertex in vertexColor, isolated vertices included
+	public void addHighlightedGraphToDraw(final String description, final Graph<Vertex, DefaultWeightedEdge> graphToDraw, Set<Vertex> vertices, Vertex exceptionVertex, Color vertexColor) {
+		if (!recording) {
+			return;
+		}
 		System.out.println("\t\t\tADDING " + description);
-		Graph<Vertex, DefaultWeightedEdge> copyOfGraphToDraw = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
-		if (!graphToDraw.edgeSet().isEmpty()) {
-			graphToDraw.edgeSet().forEach(edge -> {
-				Vertex originalEdgeSource = graphToDraw.getEdgeSource(edge);
-				Vertex originalEdgeTarget = graphToDraw.getEdgeTarget(edge);
-				Vertex source = new Vertex(originalEdgeSource);
-				Vertex target = new Vertex(originalEdgeTarget);
-				setMonarchColor(minors, majors, originalEdgeSource, source);
-				setMonarchColor(minors, majors, originalEdgeTarget, target);
-				copyOfGraphToDraw.addVertex(source);
-				copyOfGraphToDraw.addVertex(target);
-				copyOfGraphToDraw.addEdge(source, target);
-				copyOfGraphToDraw.setEdgeWeight(source, target, graphToDraw.getEdgeWeight(edge));
-			});
-			add(description, copyOfGraphToDraw);
-		} else if (!graphToDraw.vertexSet().isEmpty()) {
-			graphToDraw.vertexSet().forEach(vertex -> copyOfGraphToDraw.addVertex(new Vertex(vertex)));
-			add(description, copyOfGraphToDraw);
+		add(description, LazyGraph.of(snapshot(graphToDraw, true, vertex -> vertex.equals(exceptionVertex) ? vertexColor : vertices.contains(vertex) ? BLACK : GRAY)));
+	}
+
+	//the bipartite graph is only built if the step is drawn
+	public void addBipartiteGraphToDraw(final String description, final Supplier<Graph<Vertex, WeightedEdgeWithCapacity>> bipartiteGraphToDraw) {
+		if (!recording) {
+			return;
 		}
+		System.out.println("\t\t\tADDING LAZY " + description);
+		add(description, new LazyGraph(() -> copyBipartiteGraph(bipartiteGraphToDraw.get())));
 	}
 
-	public void addBipartiteGraphToDraw(final String description, final Graph<Vertex, WeightedEdgeWithCapacity> bipartiteGraphToDraw) {
-		System.out.println("\t\t\tADDING " + description);
+	private static Graph<Vertex, DefaultWeightedEdge> copyBipartiteGraph(final Graph<Vertex, WeightedEdgeWithCapacity> bipartiteGraphToDraw) {
 		Graph<Vertex, DefaultWeightedEdge> copyOfBipartiteGraphToDraw = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
 		if (!bipartiteGraphToDraw.edgeSet().isEmpty()) {
 			bipartiteGraphToDraw.edgeSet().forEach(edge -> {
@@ -100,23 +190,81 @@ public class Result {
 				copyOfBipartiteGraphToDraw.addEdge(source, target);
 				copyOfBipartiteGraphToDraw.setEdgeWeight(source, target, bipartiteGraphToDraw.getEdgeWeight(edge));
 			});
-			add(description, copyOfBipartiteGraphToDraw);
 		} else if (!bipartiteGraphToDraw.vertexSet().isEmpty()) {
 			bipartiteGraphToDraw.vertexSet().forEach(vertex -> copyOfBipartiteGraphToDraw.addVertex(new Vertex(vertex)));
-			add(description, copyOfBipartiteGraphToDraw);
 		}
+		return copyOfBipartiteGraphToDraw;
 	}
 
-	private void setMonarchColor(Set<Vertex> minors, Set<Vertex> majors, Vertex originalVertex, Vertex copiedVertex) {
-		if (minors.contains(originalVertex)) {
-			copiedVertex.setColor(PINK);
-		} else if (majors.contains(originalVertex)) {
-			copiedVertex.setColor(MAGENTA);
+	//the next snapshot of a graph drawn recently shares its topology and unchanged vertices
+	private GraphSnapshot snapshot(Graph<Vertex, DefaultWeightedEdge> graph, boolean allVertices, Function<Vertex, Color> colorOf) {
+		for (int i = 0; i < latestSnapshots.size(); ++i) {
+			if (latestSnapshots.get(i).isSnapshotOf(graph, allVertices)) {
+				GraphSnapshot snapshot = latestSnapshots.get(i).next(graph, colorOf);
+				latestSnapshots.set(i, snapshot);
+				return snapshot;
+			}
 		}
+		GraphSnapshot snapshot = GraphSnapshot.of(graph, allVertices, colorOf);
+		latestSnapshots.add(snapshot);
+		if (latestSnapshots.size() > TRACKED_GRAPHS) {
+			latestSnapshots.remove(0);
+		}
+		return snapshot;
+	}
+
+	//a step replayed by TraceReader
+	void addRecordedStep(String description, Graph<Vertex, DefaultWeightedEdge> graph) {
+		add(description, LazyGraph.of(graph));
 	}
 
-	private void add(String description, Graph<Vertex, DefaultWeightedEdge> copyOfGraphToDraw) {
+	private void add(String description, LazyGraph copyOfGraphToDraw) {
 		this.graphsToDraw.add(copyOfGraphToDraw);
 		this.descriptions.add(description);
+		if (stepStream != null) {
+			stepStream.publish(description, copyOfGraphToDraw);
+		}
+		if (traceWriter != null) {
+			traceWriter.writeStep(description, copyOfGraphToDraw.peek());
+		}
+		if (graphsToDraw.size() > stepsKeptInMemory) {
+			evict(graphsToDraw.size() - 1 - stepsKeptInMemory);
+		}
+	}
+
+	//the same steps, descriptions and bounds in a Result of its own, given out by the SolutionCache on every hit
+	public Result copy() {
+		Result copy = new Result();
+		copy.status = status;
+		copy.threshold = threshold;
+		copy.originalGraph = originalGraph;
+		copy.graphsToDraw.addAll(graphsToDraw);
+		copy.descriptions.addAll(descriptions);
+		copy.recording = recording;
+		copy.stepsKeptInMemory = stepsKeptInMemory;
+		copy.archive = archive == null ? null : archive.retain();
+		copy.requiredCentersLowerBounds.putAll(requiredCentersLowerBounds);
+		return copy;
+	}
+
+	//deletes the archived steps, called when the Result is dropped (replaced in the Window or evicted from the SolutionCache)
+	public void close() {
+		if (archive != null) {
+			archive.close();
+		}
+	}
+
+	//a step that was never drawn (a lazy bipartite graph) is cheaper to keep than to build and write
+	private void evict(int index) {
+		LazyGraph step = graphsToDraw.get(index);
+		if (!step.isMaterialized()) {
+			return;
+		}
+		if (archive == null) {
+			archive = new StepArchive();
+		}
+		StepArchive stepArchive = archive;
+		long offset = stepArchive.write(step.get());
+		graphsToDraw.set(index, LazyGraph.uncached(() -> stepArchive.read(offset)));
 	}
 }
@@ -0,0 +1,218 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+public class SolutionCache {
+
+/*
+key = (fingerprint(G), K, L, α, isConservative), a run with failure is not cached (its failed centers are a random sample)
+fingerprint(G) = order independent hash of the vertex ids and coordinates and the weighted edges
+entry = the Result of mainAlgorithm (null if not solvable) and the final color and ctr(v) of every vertex
+The stored Result is never given out, the solver and every hit return a copy sharing its archived steps, each holder closes its own copy.
+An evicted or replaced Result is closed.
+ */
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SolutionCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SolutionCache.this.maxEntries) {
+                    ++evictions;
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static Key key(Graph<Vertex, DefaultWeightedEdge> graph,
+                          int maxCenters,
+                          int maxClientsPerCenter,
+                          int maxFailedCenters,
+                          boolean isConservative) {
+        return new Key(fingerprint(graph), graph.vertexSet().size(), maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative);
+    }
+
+    public static long fingerprint(Graph<Vertex, DefaultWeightedEdge> graph) {
+        long fingerprint = 0;
+        for (Vertex vertex : graph.vertexSet()) {
+            fingerprint += mix(vertexHash(vertex));
+        }
+        for (DefaultWeightedEdge edge : graph.edgeSet()) {
+            long source = vertexHash(graph.getEdgeSource(edge));
+            long target = vertexHash(graph.getEdgeTarget(edge));
+            long weight = Double.doubleToLongBits(graph.getEdgeWeight(edge));
+            //the same for both edge orientations
+            fingerprint += mix(mix(Math.min(source, target)) ^ mix(Math.max(source, target) + 0x632be59bd9b4e019L) ^ mix(weight));
+        }
+        return fingerprint;
+    }
+
+    public synchronized Optional<Entry> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            ++misses;
+            return Optional.empty();
+        }
+        ++hits;
+        return Optional.of(entry);
+    }
+
+    public synchronized void put(Key key, Graph<Vertex, DefaultWeightedEdge> solvedGraph, Result result) {
+        Entry replaced = entries.put(key, new Entry(solvedGraph, result));
+        if (replaced != null && replaced.result != result) {
+            close(replaced);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.values().forEach(SolutionCache::close);
+        entries.clear();
+    }
+
+    private static void close(Entry entry) {
+        if (entry.result != null) {
+            entry.result.close();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SolutionCache{" +
+                "size=" + entries.size() +
+                ", maxEntries=" + maxEntries +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                '}';
+    }
+
+    private static long vertexHash(Vertex vertex) {
+        return mix(((long) vertex.getX() << 32) ^ (vertex.getY() & 0xffffffffL)) ^ vertex.getId();
+    }
+
+    //SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public static class Key {
+
+        private final long fingerprint;
+        private final int vertexCount;
+        private final int maxCenters;
+        private final int maxClientsPerCenter;
+        private final int maxFailedCenters;
+        private final boolean isConservative;
+
+        private Key(long fingerprint, int vertexCount, int maxCenters, int maxClientsPerCenter, int maxFailedCenters, boolean isConservative) {
+            this.fingerprint = fingerprint;
+            this.vertexCount = vertexCount;
+            this.maxCenters = maxCenters;
+            this.maxClientsPerCenter = maxClientsPerCenter;
+            this.maxFailedCenters = maxFailedCenters;
+            this.isConservative = isConservative;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return fingerprint == key.fingerprint &&
+                    vertexCount == key.vertexCount &&
+                    maxCenters == key.maxCenters &&
+                    maxClientsPerCenter == key.maxClientsPerCenter &&
+                    maxFailedCenters == key.maxFailedCenters &&
+                    isConservative == key.isConservative;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fingerprint, vertexCount, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative);
+        }
+    }
+
+    public static class Entry {
+
+        private final Result result;
+        private final Map<Vertex, Color> colors;
+        private final Map<Vertex, Vertex> centers;
+
+        private Entry(Graph<Vertex, DefaultWeightedEdge> solvedGraph, Result result) {
+            this.result = result;
+            this.colors = new HashMap<>();
+            this.centers = new HashMap<>();
+            solvedGraph.vertexSet().forEach(vertex -> {
+                Vertex key = new Vertex(vertex);
+                colors.put(key, vertex.getColor());
+                if (vertex.getCenter() != null) {
+                    centers.put(key, new Vertex(vertex.getCenter()));
+                }
+            });
+        }
+
+        public Result getResult() {
+            return result;
+        }
+
+        //writes the stored centers and ctr(v) back onto the vertices of an equal graph, returns a copy of the stored Result
+        public Result restore(Graph<Vertex, DefaultWeightedEdge> graph, StepStream stepStream) {
+            Map<Vertex, Vertex> vertices = new HashMap<>();
+            graph.vertexSet().forEach(vertex -> {
+                vertex.clearData();
+                vertices.put(vertex, vertex);
+            });
+            graph.vertexSet().forEach(vertex -> {
+                vertex.setColor(colors.getOrDefault(vertex, Color.BLACK));
+                Vertex center = vertices.get(centers.get(vertex));
+                if (center != null) {
+                    vertex.setCenter(center);
+                    center.addClient(vertex);
+                }
+            });
+            if (result == null) {
+                return null;
+            }
+            Result copy = result.copy();
+            if (stepStream != null) {
+                copy.publishTo(stepStream);
+            }
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static elte.peterpolena.graph.Utils.getCentersCount;
+
+public class SolveLauncher {
+
+/*
+Fast start for one solve job: no Spring context, no window, AlgorithmService is constructed directly.
+Started by GraphApplication with "solve" as the first argument, or as a main class of its own.
+Options (--name=value): vertices, K, L, alpha, and the flags conservative, failure, random, record (--name alone is true).
+An unknown option or an invalid value exits with 1 before anything is solved.
+The configuration is GraphProperties.current(), the same graph.* keys as the Window, bound without a Spring context.
+Timings printed at the end:
+- startup: from the start of the JVM to main
+- ready: from main to the generated graph (properties, Config, generator)
+- solve: mainAlgorithm
+- total: from the start of the JVM to the result, the cold start time of the job
+ */
+
+    private static final String USAGE = "Usage: solve [--vertices=N] [--K=N] [--L=N] [--alpha=N] [--conservative[=true|false]] [--failure[=true|false]] [--random[=true|false]] [--record[=true|false]]";
+    private static final Set<String> INT_OPTIONS = new HashSet<>(Arrays.asList("vertices", "K", "L", "alpha"));
+    private static final Set<String> FLAGS = new HashSet<>(Arrays.asList("conservative", "failure", "random", "record"));
+
+    public static void main(String[] args) {
+        long mainMillis = System.currentTimeMillis();
+        long mainNanos = System.nanoTime();
+        //Config must not ask the AWT toolkit for the screen
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        int vertices;
+        int maxCenters;
+        int maxClientsPerCenter;
+        int maxFailedCenters;
+        boolean isConservative;
+        boolean withFailure;
+        boolean randomizedPlacement;
+        boolean recording;
+        try {
+            Map<String, String> options = parse(args);
+            vertices = intOption(options, "vertices", 10);
+            maxCenters = intOption(options, "K", 1);
+            maxClientsPerCenter = intOption(options, "L", Math.max(1, vertices));
+            maxFailedCenters = intOption(options, "alpha", 1);
+            isConservative = flag(options, "conservative");
+            withFailure = flag(options, "failure");
+            randomizedPlacement = flag(options, "random");
+            recording = flag(options, "record");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            System.exit(1);
+            return;
+        }
+
+        Graph<Vertex, DefaultWeightedEdge> graph = new GraphGenerator().generateScaled(0, vertices, randomizedPlacement);
+        AlgorithmService algorithmService = new AlgorithmService();
+        algorithmService.setRecording(recording);
+        long readyNanos = System.nanoTime();
+
+        Result result = algorithmService.mainAlgorithm(graph, maxCenters, maxClientsPerCenter, maxFailedCenters, isConservative, withFailure);
+        long solvedNanos = System.nanoTime();
+
+        if (result == null) {
+            System.out.println("No solution");
+        } else {
+            System.out.println("Status: " + result.getStatus());
+            System.out.println("Threshold: " + result.getThreshold());
+            System.out.println("Centers: " + getCentersCount(graph));
+        }
+        long startupMillis = mainMillis - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println("Startup: " + startupMillis + " ms");
+        System.out.println("Ready: " + millis(readyNanos - mainNanos) + " ms");
+        System.out.println("Solve: " + millis(solvedNanos - readyNanos) + " ms");
+        System.out.println("Total: " + (startupMillis + millis(solvedNanos - mainNanos)) + " ms");
+        System.exit(result == null ? 2 : 0);
+    }
+
+    //--name=value, or --name for a flag, names outside the usage are rejected
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+            if (!INT_OPTIONS.contains(name) && !FLAGS.contains(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+            if (separator < 0 && !FLAGS.contains(name)) {
+                throw new IllegalArgumentException("Missing value of --" + name);
+            }
+            options.put(name, separator < 0 ? "true" : arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value of --" + name + ": " + value);
+        }
+    }
+
+    private static boolean flag(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null || value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid value of --" + name + ": " + value);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,43 @@
+package elte.peterpolena.graph;
+
+import java.util.*;
+
+public class SpareCapacityIndex {
+
+/*
+Centers with |dom(c)| < L, bucketed by their major.
+A free place under the same major keeps the tree path of the failure repair short.
+ */
+
+    private final int maxClientsPerCenter;
+    private final Map<Vertex, Set<Vertex>> centersByMajor = new LinkedHashMap<>();
+
+    public SpareCapacityIndex(Collection<Vertex> centers, int maxClientsPerCenter) {
+        this.maxClientsPerCenter = maxClientsPerCenter;
+        centers.forEach(this::update);
+    }
+
+    public Optional<Vertex> find(Vertex preferredMajor) {
+        Set<Vertex> preferred = centersByMajor.get(preferredMajor);
+        if (preferred != null) {
+            return preferred.stream().findFirst();
+        }
+        return centersByMajor.values().stream().findFirst().flatMap(centers -> centers.stream().findFirst());
+    }
+
+    //to be called after the clients of a center changed
+    public void update(Vertex center) {
+        if (center.getClients().size() < maxClientsPerCenter) {
+            centersByMajor.computeIfAbsent(center.getMajor(), major -> new LinkedHashSet<>()).add(center);
+        } else {
+            remove(center);
+        }
+    }
+
+    public void remove(Vertex center) {
+        Set<Vertex> centers = centersByMajor.get(center.getMajor());
+        if (centers != null && centers.remove(center) && centers.isEmpty()) {
+            centersByMajor.remove(center.getMajor());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.io.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StepArchive {
+
+/*
+Temp file of the recorded steps that were evicted from memory, a step is written once and read back on every draw.
+step = byte length, GraphCodec graph
+The file is deleted by the last close (each Result sharing it closes it when dropped), the files still open at exit by a single shutdown hook,
+so repeated solves do not pile up deleteOnExit registrations.
+ */
+
+    private static final Set<File> OPEN_FILES = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> OPEN_FILES.forEach(File::delete), "step-archive-cleanup"));
+    }
+
+    private File file;
+    private long length;
+    private boolean closed;
+    private int references = 1;
+
+    //the offset of the step, to be passed to read
+    public synchronized long write(Graph<Vertex, DefaultWeightedEdge> graph) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            GraphCodec.write(out, graph);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try (RandomAccessFile out = new RandomAccessFile(getFile(), "rw")) {
+            long offset = length;
+            out.seek(offset);
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+            length = out.getFilePointer();
+            return offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write step to " + file, e);
+        }
+    }
+
+    public synchronized Graph<Vertex, DefaultWeightedEdge> read(long offset) {
+        if (closed) {
+            throw new IllegalStateException("Step archive " + file + " is closed");
+        }
+        byte[] bytes;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(offset);
+            bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read step from " + file, e);
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return GraphCodec.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //one more Result reads the steps, the file is kept until it is closed too
+    public synchronized StepArchive retain() {
+        if (closed) {
+            throw new IllegalStateException("Step archive " + file + " is closed");
+        }
+        ++references;
+        return this;
+    }
+
+    public synchronized void close() {
+        if (closed || --references > 0) {
+            return;
+        }
+        closed = true;
+        if (file != null) {
+            if (!file.delete() && file.exists()) {
+                System.out.println("\tCould not delete " + file);
+            }
+            OPEN_FILES.remove(file);
+        }
+    }
+
+    private File getFile() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Step archive " + file + " is closed");
+        }
+        if (file == null) {
+            file = File.createTempFile("steps", ".bin");
+            OPEN_FILES.add(file);
+        }
+        return file;
+    }
+}
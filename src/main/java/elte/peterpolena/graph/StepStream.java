@@ -0,0 +1,87 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class StepStream {
+
+/*
+Bounded producer/consumer channel between the algorithm (producer, via Result) and the drawing timer (consumer).
+A full queue blocks the producer until the consumer catches up, after cancellation nobody consumes and steps are dropped.
+The blocking is deliberate: auto display shows every step in order, so a producer faster than the timer either waits or the buffer grows.
+While the solver waits, memory stays bounded: capacity queued steps, the prerendered frames, the current frame in the Window
+and the steps the Result keeps in memory (older ones are archived to disk). A run without auto display has no stream and never waits.
+ */
+
+    private static final long OFFER_TIMEOUT_MILLIS = 50;
+
+    private final BlockingQueue<Step> queue;
+    private final CancellationToken cancellationToken;
+    private volatile boolean closed;
+
+    public StepStream(int capacity, CancellationToken cancellationToken) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.cancellationToken = cancellationToken;
+    }
+
+    public void publish(String description, Graph<Vertex, DefaultWeightedEdge> graph) {
+        publish(description, LazyGraph.of(graph));
+    }
+
+    public void publish(String description, LazyGraph graph) {
+        Step step = new Step(description, graph);
+        try {
+            while (!queue.offer(step, OFFER_TIMEOUT_MILLIS, MILLISECONDS)) {
+                if (cancellationToken.isCancelled()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while publishing " + description);
+        }
+    }
+
+    public void close() {
+        this.closed = true;
+    }
+
+    public Step poll() {
+        return queue.poll();
+    }
+
+    //waits up to timeoutMillis for the next step, null if none arrived
+    public Step poll(long timeoutMillis) throws InterruptedException {
+        return queue.poll(timeoutMillis, MILLISECONDS);
+    }
+
+    public boolean isFinished() {
+        return closed && queue.isEmpty();
+    }
+
+    public static class Step {
+
+        private final String description;
+        private final LazyGraph graph;
+
+        private Step(String description, LazyGraph graph) {
+            this.description = description;
+            this.graph = graph;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        //materializes a lazily recorded step on the drawing side
+        public Graph<Vertex, DefaultWeightedEdge> getGraph() {
+            return graph.get();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package elte.peterpolena.graph;
+
+import java.awt.*;
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+
+import static elte.peterpolena.graph.TraceWriter.*;
+
+public class TraceReader {
+
+/*
+Replays a TraceWriter file into a Result, without running the algorithm.
+The slots mirror the ones of the writer, a delta step shares every unchanged chunk of its base snapshot.
+A read back graph keeps the vertex and edge order of the written snapshot, so its positions match the ones of the deltas.
+ */
+
+    //null if the traced problem was not solvable
+    public static Result read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a trace file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported trace version " + version + " in " + file);
+            }
+
+            Result result = new Result();
+            GraphSnapshot[] slots = new GraphSnapshot[SLOTS];
+            while (true) {
+                byte record = in.readByte();
+                switch (record) {
+                    case ORIGINAL:
+                        result.setOriginalGraph(readFull(in, slots));
+                        break;
+                    case FULL: {
+                        String description = in.readUTF();
+                        result.addRecordedStep(description, readFull(in, slots));
+                        break;
+                    }
+                    case DELTA: {
+                        String description = in.readUTF();
+                        int slot = in.readInt();
+                        int[] positions = new int[in.readInt()];
+                        Color[] colors = new Color[positions.length];
+                        for (int i = 0; i < positions.length; ++i) {
+                            positions[i] = in.readInt();
+                            colors[i] = new Color(in.readInt(), true);
+                        }
+                        slots[slot] = slots[slot].withColors(positions, colors);
+                        result.addRecordedStep(description, slots[slot]);
+                        break;
+                    }
+                    case END:
+                        if (!in.readBoolean()) {
+                            return null;
+                        }
+                        result.setStatus(Result.Status.valueOf(in.readUTF()));
+                        result.setThreshold(in.readDouble());
+                        return result;
+                    default:
+                        throw new IOException("Unknown trace record " + record + " in " + file);
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Trace " + file + " ends without a result, the traced run did not finish", e);
+        }
+    }
+
+    private static GraphSnapshot readFull(DataInputStream in, GraphSnapshot[] slots) throws IOException {
+        int slot = in.readInt();
+        GraphSnapshot snapshot = GraphSnapshot.of(GraphCodec.read(in), true, Vertex::getColor);
+        if (slot >= 0) {
+            slots[slot] = snapshot;
+        }
+        return snapshot;
+    }
+}
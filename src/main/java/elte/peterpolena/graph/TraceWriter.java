@@ -0,0 +1,123 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.io.*;
+import java.util.zip.GZIPOutputStream;
+
+public class TraceWriter implements Closeable {
+
+/*
+Streams the steps of a Result into a gzip compressed trace file while the algorithm runs, TraceReader replays it.
+trace = MAGIC, VERSION, records, END
+ORIGINAL = slot, GraphCodec graph
+FULL = description, slot, GraphCodec graph
+DELTA = description, slot, changed count, (position, rgb) per changed vertex
+END = solved, status, threshold (status and threshold only if solved)
+A snapshot is kept in one of SLOTS slots, the next snapshot of the same graph is written as the color delta to it.
+Any other graph (bipartite, read back from StepArchive) is written in full with slot -1.
+ */
+
+    static final int MAGIC = 0x4B545243;
+    static final int VERSION = 1;
+    static final int SLOTS = 8;
+    static final byte ORIGINAL = 1;
+    static final byte FULL = 2;
+    static final byte DELTA = 3;
+    static final byte END = 4;
+
+    private final File file;
+    private final DataOutputStream out;
+    private final GraphSnapshot[] slots = new GraphSnapshot[SLOTS];
+    private int nextSlot;
+    private int steps;
+
+    public TraceWriter(File file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file))));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    public synchronized void writeOriginalGraph(Graph<Vertex, DefaultWeightedEdge> graph) {
+        try {
+            out.writeByte(ORIGINAL);
+            out.writeInt(store(graph));
+            GraphCodec.write(out, graph);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace " + file, e);
+        }
+    }
+
+    public synchronized void writeStep(String description, Graph<Vertex, DefaultWeightedEdge> graph) {
+        try {
+            int slot = findSlot(graph);
+            if (slot >= 0) {
+                GraphSnapshot snapshot = (GraphSnapshot) graph;
+                int[] changed = snapshot.changedSince(slots[slot]);
+                out.writeByte(DELTA);
+                out.writeUTF(description);
+                out.writeInt(slot);
+                out.writeInt(changed.length);
+                for (int position : changed) {
+                    out.writeInt(position);
+                    out.writeInt(snapshot.vertexAt(position).getColor().getRGB());
+                }
+                slots[slot] = snapshot;
+            } else {
+                out.writeByte(FULL);
+                out.writeUTF(description);
+                out.writeInt(store(graph));
+                GraphCodec.write(out, graph);
+            }
+            ++steps;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace " + file, e);
+        }
+    }
+
+    //null if the problem was not solvable
+    public synchronized void finish(Result result) {
+        try {
+            out.writeByte(END);
+            out.writeBoolean(result != null);
+            if (result != null) {
+                out.writeUTF(result.getStatus().name());
+                out.writeDouble(result.getThreshold());
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace " + file, e);
+        }
+        System.out.println("\tTrace written to " + file + " (" + steps + " steps, " + file.length() + " bytes)");
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private int findSlot(Graph<Vertex, DefaultWeightedEdge> graph) {
+        if (!(graph instanceof GraphSnapshot)) {
+            return -1;
+        }
+        for (int slot = 0; slot < SLOTS; ++slot) {
+            if (((GraphSnapshot) graph).sharesTopologyWith(slots[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    //the slot the reader has to keep the graph in, the oldest one is reused
+    private int store(Graph<Vertex, DefaultWeightedEdge> graph) {
+        if (!(graph instanceof GraphSnapshot)) {
+            return -1;
+        }
+        int slot = nextSlot;
+        slots[slot] = (GraphSnapshot) graph;
+        nextSlot = (nextSlot + 1) % SLOTS;
+        return slot;
+    }
+}
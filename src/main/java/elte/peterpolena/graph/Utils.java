@@ -12,11 +12,13 @@ import java.util.*;
 import static java.awt.Color.*;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
-import static org.apache.commons.collections4.CollectionUtils.intersection;
 
 public class Utils {
 
     public static Graph<Vertex, DefaultWeightedEdge> getSubGraph(Graph<Vertex, DefaultWeightedEdge> graph, Set<Vertex> vertices) {
+        if (graph instanceof DenseWeightedGraph) {
+            return ((DenseWeightedGraph) graph).getInducedSubGraph(vertices);
+        }
         Graph<Vertex, DefaultWeightedEdge> subGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
         vertices.forEach(subGraph::addVertex);
         List<Vertex> vertexList = new ArrayList<>(vertices);
@@ -37,11 +39,37 @@ public class Utils {
                 .stream()
                 .filter(edgeToFilter -> graph.getEdgeWeight(edgeToFilter) <= maxWeight)
                 .collect(toList())
-                .forEach(edgeToAdd -> subGraph
-                        .addEdge(
-                                graph.getEdgeSource(edgeToAdd),
-                                graph.getEdgeTarget(edgeToAdd),
-                                edgeToAdd));
+                .forEach(edgeToAdd -> {
+                    subGraph.addEdge(
+                            graph.getEdgeSource(edgeToAdd),
+                            graph.getEdgeTarget(edgeToAdd),
+                            edgeToAdd);
+                    subGraph.setEdgeWeight(edgeToAdd, graph.getEdgeWeight(edgeToAdd));
+                });
+    }
+
+    public static Graph<Vertex, DefaultWeightedEdge> getThresholdSubGraph(Graph<Vertex, DefaultWeightedEdge> graph, double maxWeight) {
+        if (graph instanceof DenseWeightedGraph) {
+            return ((DenseWeightedGraph) graph).getThresholdSubGraph(maxWeight);
+        }
+        Graph<Vertex, DefaultWeightedEdge> subGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+        graph.vertexSet().forEach(subGraph::addVertex);
+        addEdgesUpToMaxWeightToSubGraph(graph, subGraph, maxWeight);
+        return subGraph;
+    }
+
+    public static List<Double> getDistinctWeights(Graph<Vertex, DefaultWeightedEdge> graph) {
+        if (graph instanceof DenseWeightedGraph) {
+            return ((DenseWeightedGraph) graph).getDistinctWeights();
+        }
+        return graph
+                .edgeSet()
+                .stream()
+                .map(graph::getEdgeWeight)
+                .collect(toSet())
+                .stream()
+                .sorted()
+                .collect(toList());
     }
 
     public static Comparator<DefaultWeightedEdge> getDefaultWeightedEdgeComparator(Graph<Vertex, DefaultWeightedEdge> graph) {
@@ -183,25 +211,14 @@ public class Utils {
         return list.subList(0, size);
     }
 
-    public static boolean hasUnmarkedNodesFurther(Graph<Vertex, DefaultWeightedEdge> graph, Set<Vertex> fromSet, int distance) {
-        Set<Vertex> allVertex = new HashSet<>(graph.vertexSet());
-        fromSet.forEach(x -> allVertex.removeAll(getAdjacentVerticesUpToDistance(graph, x, distance)));
-        return !allVertex.isEmpty();
-    }
-
-    public static Vertex getRandomVertexFromDistance(Graph<Vertex, DefaultWeightedEdge> graph, Set<Vertex> distanceFrom, List<Vertex> fromList, int distance) {
-        Set<Vertex> allVertex = new HashSet<>();
-        distanceFrom.forEach(x -> allVertex.addAll(getAdjacentVerticesAtDistance(graph, x, distance)));
-        distanceFrom.forEach(x -> allVertex.removeAll(getAdjacentVerticesUpToDistance(graph, x, distance - 1)));
-
-        return intersection(allVertex, fromList).stream().findAny().get();
-    }
-
     public static Vertex getALeaf(Set<Vertex> tree) {
         return tree.stream().filter(x -> tree.stream().noneMatch(y -> y.getParent() == x)).findAny().get();
     }
 
     public static Graph<Vertex, DefaultWeightedEdge> copy(Graph<Vertex, DefaultWeightedEdge> graph) {
+        if (graph instanceof DenseWeightedGraph) {
+            return ((DenseWeightedGraph) graph).copyVertices();
+        }
         Graph<Vertex, DefaultWeightedEdge> copy = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
 		if (!graph.edgeSet().isEmpty()) {
 			graph.edgeSet().forEach(edge -> {
@@ -218,40 +235,12 @@ public class Utils {
         return copy;
     }
 
-    public static Graph<Vertex, DefaultWeightedEdge> copyHighlight(Graph<Vertex, DefaultWeightedEdge> graph, Set<Vertex> vertices, Vertex exceptionVertex, Color vertexColor) {
-        Graph<Vertex, DefaultWeightedEdge> copy = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
-        if (!graph.edgeSet().isEmpty()) {
-            graph.edgeSet().forEach(edge -> {
-                Vertex source = new Vertex(graph.getEdgeSource(edge));
-                source.setColor(BLACK);
-                Vertex target = new Vertex(graph.getEdgeTarget(edge));
-                target.setColor(BLACK);
-                if (!vertices.contains(source))
-                    source.setColor(GRAY);
-                if (!vertices.contains(target))
-                    target.setColor(GRAY);
-                if (source.equals(exceptionVertex))
-                    source.setColor(vertexColor);
-                if (target.equals(exceptionVertex))
-                    target.setColor(vertexColor);
-                copy.addVertex(source);
-                copy.addVertex(target);
-                copy.addEdge(source, target);
-                copy.setEdgeWeight(source, target, graph.getEdgeWeight(edge));
-            });
+    //a graph the caller may keep for display: snapshots are immutable and returned as they are, a dense graph keeps its compact copy
+    public static Graph<Vertex, DefaultWeightedEdge> share(Graph<Vertex, DefaultWeightedEdge> graph) {
+        if (graph instanceof DenseWeightedGraph) {
+            return copy(graph);
         }
-        graph.vertexSet().forEach(x -> {
-            if (!copy.vertexSet().contains(x)) {
-                Vertex missingVertex = new Vertex(x);
-                missingVertex.setColor(BLACK);
-                if (!vertices.contains(missingVertex))
-                    missingVertex.setColor(GRAY);
-                if (missingVertex.equals(exceptionVertex))
-                    missingVertex.setColor(vertexColor);
-                copy.addVertex(missingVertex);
-            }
-        });
-        return copy;
+        return GraphSnapshot.of(graph);
     }
 
     public static Set<Vertex> getCenters(Graph<Vertex, DefaultWeightedEdge> graph) {
@@ -3,6 +3,7 @@ package elte.peterpolena.graph;
 import java.awt.*;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Vertex {
 
@@ -10,8 +11,14 @@ public class Vertex {
 vertex.getEmpire() = Emp(v)
 vertex.getClients() = dom(v)
 vertex.getCenter() = ctr(v)
+id = identity of the vertex, kept by the copies, dense (0..n-1) for the vertices of a generated graph,
+negative and unique for every other vertex
+the solver collections are allocated on first use, display copies only carry id, coordinates and color
  */
 
+    private static final AtomicInteger nextAnonymousId = new AtomicInteger(-1);
+
+    private final int id;
     private final int x;
     private final int y;
     private Color color;
@@ -28,29 +35,29 @@ vertex.getCenter() = ctr(v)
     private Set<Vertex> backupCenters;
 
     public Vertex(int x, int y, Color color){
+        this(nextAnonymousId.getAndDecrement(), x, y, color);
+    }
+
+    public Vertex(int id, int x, int y, Color color){
+        this.id = id;
         this.x = x;
         this.y = y;
         this.color = color;
-        this.empire = new ArrayList<>();
-        this.children = new ArrayList<>();
-        this.minors = new ArrayList<>();
-        this.clients = new HashSet<>();
         this.isMarked = false;
         this.isMonarch = false;
-        this.backupCenters = new HashSet<>();
     }
 
     public Vertex(Vertex vertex) {
+        this.id = vertex.getId();
         this.x = vertex.getX();
         this.y = vertex.getY();
         this.color = vertex.getColor();
-        this.empire = new ArrayList<>();
-        this.children = new ArrayList<>();
-        this.minors = new ArrayList<>();
-        this.clients = new HashSet<>();
         this.isMarked = false;
         this.isMonarch = false;
-        this.backupCenters = new HashSet<>();
+    }
+
+    public int getId() {
+        return id;
     }
 
     public int getX() {
@@ -70,10 +77,16 @@ vertex.getCenter() = ctr(v)
     }
 
     public List<Vertex> getChildren() {
+        if (children == null) {
+            children = new ArrayList<>();
+        }
         return children;
     }
 
     public List<Vertex> getEmpire() {
+        if (empire == null) {
+            empire = new ArrayList<>();
+        }
         return empire;
     }
 
@@ -98,7 +111,7 @@ vertex.getCenter() = ctr(v)
     }
 
     public void addToEmpire(Vertex vertex) {
-        this.empire.add(vertex);
+        getEmpire().add(vertex);
     }
 
     public void setParent(Vertex parent) {
@@ -106,7 +119,7 @@ vertex.getCenter() = ctr(v)
     }
 
     public void addChild(Vertex child) {
-        this.children.add(child);
+        getChildren().add(child);
     }
 
     public void setMarked() {
@@ -130,27 +143,33 @@ vertex.getCenter() = ctr(v)
     }
 
     public List<Vertex> getMinors() {
+        if (minors == null) {
+            minors = new ArrayList<>();
+        }
         return minors;
     }
 
     public void addMinor(Vertex minor) {
-        this.minors.add(minor);
+        getMinors().add(minor);
     }
 
     public void addMinors(Collection<Vertex> minors) {
-        this.minors.addAll(minors);
+        getMinors().addAll(minors);
     }
 
     public Set<Vertex> getClients() {
+        if (clients == null) {
+            clients = new HashSet<>();
+        }
         return clients;
     }
 
     public void addClient(Vertex client) {
-        this.clients.add(client);
+        getClients().add(client);
     }
 
     public void addClients(Set<Vertex> clients) {
-        this.clients.addAll(clients);
+        getClients().addAll(clients);
     }
 
     public void setClients(Set<Vertex> clients) {
@@ -162,24 +181,33 @@ vertex.getCenter() = ctr(v)
     }
 
     public Set<Vertex> getBackupCenters() {
+        if (backupCenters == null) {
+            backupCenters = new HashSet<>();
+        }
         return backupCenters;
     }
 
     public void clearData() {
         center = null;
-        clients.clear();
-        minors.clear();
+        clear(clients);
+        clear(minors);
         major = null;
         deputy = null;
         isMonarch = false;
         isMarked = false;
-        empire.clear();
+        clear(empire);
         parent = null;
-        children.clear();
-        backupCenters.clear();
+        clear(children);
+        clear(backupCenters);
         setColor(Color.BLACK);
     }
 
+    private static void clear(Collection<Vertex> collection) {
+        if (collection != null) {
+            collection.clear();
+        }
+    }
+
     public void setCenter(Vertex center) {
         this.center = center;
     }
@@ -187,7 +215,8 @@ vertex.getCenter() = ctr(v)
     @Override
     public String toString() {
         return "Vertex{" +
-                "x=" + x +
+                "id=" + id +
+                ", x=" + x +
                 ", y=" + y +
                 ", color=" + color +
                 '}';
@@ -198,12 +227,11 @@ vertex.getCenter() = ctr(v)
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Vertex vertex = (Vertex) o;
-        return x == vertex.x &&
-                y == vertex.y;
+        return id == vertex.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return id;
     }
 }
@@ -0,0 +1,57 @@
+package elte.peterpolena.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class VertexIndex {
+
+/*
+position of every vertex in an array of vertices, looked up by Vertex.getId()
+non-negative ids of a bounded range index a table directly, any other id set falls back to a map
+ */
+
+    private static final int ABSENT = -1;
+
+    private final int[] positions;
+    private final Map<Vertex, Integer> fallback;
+
+    public VertexIndex(Vertex[] vertices) {
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        for (Vertex vertex : vertices) {
+            minId = Math.min(minId, vertex.getId());
+            maxId = Math.max(maxId, vertex.getId());
+        }
+        //a component of a generated graph keeps the ids of the whole graph, so the table may be sparse up to a bound
+        boolean dense = vertices.length == 0 || (minId >= 0 && maxId < Math.max(4 * vertices.length, 4096));
+        this.positions = dense ? new int[vertices.length == 0 ? 0 : maxId + 1] : null;
+        this.fallback = dense ? null : new HashMap<>();
+        if (dense) {
+            Arrays.fill(positions, ABSENT);
+        }
+        for (int i = 0; i < vertices.length; ++i) {
+            if (indexOf(vertices[i]) != ABSENT) {
+                throw new IllegalArgumentException("Duplicate vertex: " + vertices[i]);
+            }
+            if (dense) {
+                positions[vertices[i].getId()] = i;
+            } else {
+                fallback.put(vertices[i], i);
+            }
+        }
+    }
+
+    //-1 if the vertex is not indexed
+    public int indexOf(Vertex vertex) {
+        if (positions == null) {
+            return fallback.getOrDefault(vertex, ABSENT);
+        }
+        int id = vertex.getId();
+        return id >= 0 && id < positions.length ? positions[id] : ABSENT;
+    }
+
+    public boolean contains(Vertex vertex) {
+        return indexOf(vertex) != ABSENT;
+    }
+}
@@ -10,7 +10,12 @@ import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 import static elte.peterpolena.graph.Config.clientsSliderStartValue;
 import static elte.peterpolena.graph.Config.frameHeight;
@@ -18,13 +23,18 @@ import static elte.peterpolena.graph.Config.frameWidth;
 import static elte.peterpolena.graph.Config.maxCenters;
 import static elte.peterpolena.graph.Config.maxClientsPerCenter;
 import static elte.peterpolena.graph.Config.maxTimerDelay;
+import static elte.peterpolena.graph.Config.prerenderedFrames;
 import static elte.peterpolena.graph.Config.sliderMaxValue;
 import static elte.peterpolena.graph.Config.sliderMinValue;
 import static elte.peterpolena.graph.Config.sliderPanelHeight;
 import static elte.peterpolena.graph.Config.sliderPanelWidth;
+import static elte.peterpolena.graph.Config.solutionCacheSize;
+import static elte.peterpolena.graph.Config.stepStreamCapacity;
 import static elte.peterpolena.graph.Utils.copy;
 import static elte.peterpolena.graph.Utils.getCentersCount;
+import static elte.peterpolena.graph.Utils.share;
 import static java.awt.event.ItemEvent.SELECTED;
+import static javax.swing.JOptionPane.ERROR_MESSAGE;
 import static javax.swing.JOptionPane.WARNING_MESSAGE;
 import static javax.swing.JOptionPane.showMessageDialog;
 
@@ -36,9 +46,11 @@ public class Window {
     private GraphPainter graphPainter;
     private boolean randomizedPlacement = false;
     private boolean showEdgeWeight = true;
+	private boolean relevantEdgesOnly = false;
     private boolean isConservative = false;
 	private boolean autoDisplay = false;
     private boolean withFailure = true;
+	private boolean recordTrace = false;
     private int maxCentersValue;
     private int maxClientsPerCentersValue;
     private int maxFailedCentersValue;
@@ -50,12 +62,16 @@ public class Window {
 	private JSlider nodesSlider;
 	private JCheckBox randomizedPlacementCheckBox;
     private JCheckBox showEdgeWeightCheckBox;
+	private JCheckBox relevantEdgesOnlyCheckBox;
     private JCheckBox isConservativeCheckBox;
     private JCheckBox autoDisplayCheckBox;
     private JCheckBox withFailureCheckBox;
+	private JCheckBox recordTraceCheckBox;
+	private JButton loadTraceButton;
 	private JButton reloadButton;
     private JLabel maxCentersLabel;
 	private JSpinner maxCentersSpinner;
+	private JButton minimumCentersButton;
     private JLabel maxClientsPerCenterLabel;
 	private JSpinner maxClientsPerCenterSpinner;
     private JLabel maxFailedCentersLabel;
@@ -63,15 +79,26 @@ public class Window {
     private JLabel timerDelayLabel;
 	private JSpinner timerDelaySpinner;
 	private JButton executeMainAlgorithmButton;
+	private JButton cancelButton;
+	private JProgressBar solveProgressBar;
 	private JButton showPreviousPartialResult;
 	private JButton showNextPartialResult;
 	private JButton end;
 	private Timer drawSubGraphsTimer;
+	private FramePrerenderer framePrerenderer;
 	private Result result;
 	private List<Graph<Vertex, DefaultWeightedEdge>> graphsToDraw;
 	private List<String> descriptions;
+	private CancellationToken cancellationToken;
+	private StepStream stepStream;
+	private SwingWorker<Result, String> solveWorker;
+	private final SolutionCache solutionCache;
 
-	public Window() {
+	//Config reads the installed properties when it is first used, so they are installed before anything else,
+	//no field initializer may read Config
+	public Window(GraphProperties properties) {
+		GraphProperties.install(properties);
+		solutionCache = new SolutionCache(solutionCacheSize);
 
 		frame = new JFrame("Graph");
 		frame.setSize(frameWidth, frameHeight);
@@ -100,18 +127,20 @@ public class Window {
 
 		nodesSlider = new JSlider(SwingConstants.HORIZONTAL, sliderMinValue, sliderMaxValue, clientsSliderStartValue);
         nodesSlider.setToolTipText("Set the number of vertices");
-        nodesSlider.setMinorTickSpacing(1);
-        nodesSlider.setMajorTickSpacing(1);
+        //a tick per vertex up to 10 vertices, otherwise 10 labelled ticks
+        int majorTickSpacing = Math.max(1, (sliderMaxValue - sliderMinValue) / 10);
+        nodesSlider.setMinorTickSpacing(majorTickSpacing == 1 ? 1 : 0);
+        nodesSlider.setMajorTickSpacing(majorTickSpacing);
         nodesSlider.setPaintTicks(true);
         nodesSlider.setPaintLabels(true);
-        nodesSlider.setSnapToTicks(true);
+        nodesSlider.setSnapToTicks(majorTickSpacing == 1);
         nodesSlider.setName("NodesSlider");
         nodesLabel = new JLabel("V");
 
 		randomizedPlacementCheckBox = new JCheckBox("Randomized placement", randomizedPlacement);
         randomizedPlacementCheckBox.addItemListener(e -> {
             randomizedPlacement = e.getStateChange() == SELECTED;
-            Graph<Vertex, DefaultWeightedEdge> generatedGraph = graphGenerator.generate(0, nodesSlider.getValue(), randomizedPlacement);
+            Graph<Vertex, DefaultWeightedEdge> generatedGraph = graphGenerator.generateScaled(0, nodesSlider.getValue(), randomizedPlacement);
             drawGraph(generatedGraph);
         });
 
@@ -122,6 +151,13 @@ public class Window {
 			drawGraph(graph);
         });
 
+		relevantEdgesOnlyCheckBox = new JCheckBox("Focus", relevantEdgesOnly);
+		relevantEdgesOnlyCheckBox.setToolTipText("Enable to draw only the edges of highlighted vertices (centers, monarchs, failed centers)");
+		relevantEdgesOnlyCheckBox.addItemListener(e -> {
+			relevantEdgesOnly = e.getStateChange() == SELECTED;
+			graphPainter.setRelevantEdgesOnly(relevantEdgesOnly);
+		});
+
         isConservativeCheckBox = new JCheckBox("Conservative", isConservative);
         isConservativeCheckBox.setToolTipText("Enable to use conservative algorithm");
         isConservativeCheckBox.addItemListener(e -> isConservative = e.getStateChange() == SELECTED);
@@ -138,29 +174,41 @@ public class Window {
         withFailureCheckBox.setToolTipText("Enable to include the reassignment of α failed centers into the calculation");
         withFailureCheckBox.addItemListener(e -> withFailure = e.getStateChange() == SELECTED);
 
+		recordTraceCheckBox = new JCheckBox("Trace", recordTrace);
+		recordTraceCheckBox.setToolTipText("Enable to write the steps of the next run to a compressed trace file");
+		recordTraceCheckBox.addItemListener(e -> recordTrace = e.getStateChange() == SELECTED);
+
+		loadTraceButton = new JButton("Load trace");
+		loadTraceButton.setToolTipText("Replay the steps of a trace file without running the algorithm");
+		loadTraceButton.addActionListener(e -> loadTrace());
+
 		reloadButton = new JButton("Reload");
         reloadButton.setToolTipText("Reload current graph with new edge weights");
         reloadButton.addActionListener(e -> {
-			Graph<Vertex, DefaultWeightedEdge> generatedGraph = graphGenerator.generate(0, nodesSlider.getValue(), randomizedPlacement);
+			Graph<Vertex, DefaultWeightedEdge> generatedGraph = graphGenerator.generateScaled(0, nodesSlider.getValue(), randomizedPlacement);
 			drawGraph(generatedGraph);
 			descriptionLabel.setText("Vertices: " + generatedGraph.vertexSet().size() + ", Edges: " + generatedGraph.edgeSet().size());
         });
 
 		maxCentersSpinner = new JSpinner(new SpinnerNumberModel(1, 1, maxCenters, 1));
         maxCentersSpinner.setToolTipText("Set the maximum number of assignable centers");
-        ((JSpinner.DefaultEditor) maxCentersSpinner.getEditor()).getTextField().setEditable(false);
+        ((JSpinner.DefaultEditor) maxCentersSpinner.getEditor()).getTextField().setEditable(true);
 		maxCentersSpinner.addChangeListener(e -> maxCentersValue = (int) maxCentersSpinner.getValue());
         maxCentersLabel = new JLabel("K");
 
+		minimumCentersButton = new JButton("Min K");
+		minimumCentersButton.setToolTipText("Find the fewest centers that solve the current graph with L and α");
+		minimumCentersButton.addActionListener(e -> findMinimumCenters());
+
 		maxClientsPerCenterSpinner = new JSpinner(new SpinnerNumberModel(1, 1, maxClientsPerCenter, 1));
         maxClientsPerCenterSpinner.setToolTipText("Set the maximum number of clients assignable to a center");
-        ((JSpinner.DefaultEditor) maxClientsPerCenterSpinner.getEditor()).getTextField().setEditable(false);
+        ((JSpinner.DefaultEditor) maxClientsPerCenterSpinner.getEditor()).getTextField().setEditable(true);
 		maxClientsPerCenterSpinner.addChangeListener(e -> maxClientsPerCentersValue = (int) maxClientsPerCenterSpinner.getValue());
         maxClientsPerCenterLabel = new JLabel("L");
 
 		maxFailedCentersSpinner = new JSpinner(new SpinnerNumberModel(1, 1, maxCenters, 1));
         maxFailedCentersSpinner.setToolTipText("Set the maximum number of centers that could fail");
-        ((JSpinner.DefaultEditor) maxFailedCentersSpinner.getEditor()).getTextField().setEditable(false);
+        ((JSpinner.DefaultEditor) maxFailedCentersSpinner.getEditor()).getTextField().setEditable(true);
 		maxFailedCentersSpinner.addChangeListener(e -> maxFailedCentersValue = (int) maxFailedCentersSpinner.getValue());
         maxFailedCentersLabel = new JLabel("α");
 
@@ -176,6 +224,16 @@ public class Window {
         executeMainAlgorithmButton.setToolTipText("Start the algorithm");
         executeMainAlgorithmButton.addActionListener(e -> executeMainAlgorithm());
 
+		cancelButton = new JButton("Cancel");
+		cancelButton.setToolTipText("Cancel the running algorithm");
+		cancelButton.addActionListener(e -> cancelMainAlgorithm());
+		cancelButton.setEnabled(false);
+
+		solveProgressBar = new JProgressBar(0, 100);
+		solveProgressBar.setToolTipText("Thresholds tried by the running algorithm");
+		solveProgressBar.setStringPainted(true);
+		solveProgressBar.setVisible(false);
+
 		showPreviousPartialResult = new JButton("<");
 		showPreviousPartialResult.setToolTipText("Show previous partial result");
 		showPreviousPartialResult.addActionListener(e -> manuallyDrawSubGraph(false));
@@ -200,7 +258,7 @@ public class Window {
         ChangeListener optionsChangeListener = e -> {
             JSlider slider = (JSlider) e.getSource();
             if (!slider.getValueIsAdjusting()) {
-                Graph<Vertex, DefaultWeightedEdge> generatedGraph = graphGenerator.generate(0, nodesSlider.getValue(), randomizedPlacement);
+                Graph<Vertex, DefaultWeightedEdge> generatedGraph = graphGenerator.generateScaled(0, nodesSlider.getValue(), randomizedPlacement);
                 drawGraph(generatedGraph);
                 descriptionLabel.setText("Vertices: " + generatedGraph.vertexSet().size() + ", Edges: " + generatedGraph.edgeSet().size());
             }
@@ -216,12 +274,14 @@ public class Window {
 //        optionsPanel.add(centersLabel);
 //        optionsPanel.add(centerSlider);
         optionsPanel.add(showEdgeWeightCheckBox);
+        optionsPanel.add(relevantEdgesOnlyCheckBox);
         optionsPanel.add(nodesLabel);
         optionsPanel.add(nodesSlider);
 //        optionsPanel.add(randomizedPlacementCheckBox);
         optionsPanel.add(reloadButton);
         optionsPanel.add(maxCentersLabel);
         optionsPanel.add(maxCentersSpinner);
+        optionsPanel.add(minimumCentersButton);
         optionsPanel.add(maxClientsPerCenterLabel);
         optionsPanel.add(maxClientsPerCenterSpinner);
         optionsPanel.add(maxFailedCentersLabel);
@@ -231,9 +291,13 @@ public class Window {
         drawControlsPanel.add(isConservativeCheckBox);
         drawControlsPanel.add(withFailureCheckBox);
         drawControlsPanel.add(autoDisplayCheckBox);
+		drawControlsPanel.add(recordTraceCheckBox);
 		drawControlsPanel.add(timerDelayLabel);
 		drawControlsPanel.add(timerDelaySpinner);
 		drawControlsPanel.add(executeMainAlgorithmButton);
+		drawControlsPanel.add(loadTraceButton);
+		drawControlsPanel.add(cancelButton);
+		drawControlsPanel.add(solveProgressBar);
 		drawControlsPanel.add(showPreviousPartialResult);
 		drawControlsPanel.add(showNextPartialResult);
 		drawControlsPanel.add(end);
@@ -244,6 +308,7 @@ public class Window {
         JPanel descriptionPanel = new JPanel();
         descriptionPanel.add(descriptionLabel);
 
+		frame.add(graphPainter, BorderLayout.CENTER);
 		frame.add(controlPanel, BorderLayout.SOUTH);
 		frame.add(descriptionPanel, BorderLayout.NORTH);
 
@@ -256,28 +321,234 @@ public class Window {
 
 		drawGraph(graph);
 
-		result = new AlgorithmService().mainAlgorithm(
-				graph,
-				maxCentersValue,
-				maxClientsPerCentersValue,
-				maxFailedCentersValue,
-                isConservative,
-                withFailure);
+		//the algorithm works on its own copy, so repainting the displayed graph never races with it
+		Graph<Vertex, DefaultWeightedEdge> graphToSolve = copy(graph);
+		int maxCenters = maxCentersValue;
+		int maxClientsPerCenter = maxClientsPerCentersValue;
+		int maxFailedCenters = maxFailedCentersValue;
+		boolean conservative = isConservative;
+		boolean failure = withFailure;
+		TraceWriter traceWriter = recordTrace ? openTraceWriter() : null;
+
+		dropResult();
+		cancellationToken = new CancellationToken();
+		//auto display draws the steps while the algorithm is still producing them
+		stepStream = autoDisplay ? new StepStream(stepStreamCapacity, cancellationToken) : null;
+		AlgorithmService algorithmService = new AlgorithmService();
+		algorithmService.setStepStream(stepStream);
+		algorithmService.setSolutionCache(solutionCache);
+		algorithmService.setTraceWriter(traceWriter);
+		solveWorker = new SwingWorker<Result, String>() {
+			@Override
+			protected Result doInBackground() throws IOException {
+				algorithmService.setProgressListener((thresholdIndex, thresholdCount, phase) -> {
+					setProgress(thresholdCount == 0 ? 0 : 100 * thresholdIndex / thresholdCount);
+					publish("Threshold " + (thresholdIndex + 1) + "/" + thresholdCount + " " + phase);
+				});
+				try {
+					Result solved = algorithmService.mainAlgorithm(
+							graphToSolve,
+							maxCenters,
+							maxClientsPerCenter,
+							maxFailedCenters,
+							conservative,
+							failure,
+							cancellationToken);
+					if (traceWriter != null) {
+						traceWriter.finish(solved);
+					}
+					return solved;
+				} finally {
+					if (stepStream != null) {
+						stepStream.close();
+					}
+					if (traceWriter != null) {
+						traceWriter.close();
+					}
+				}
+			}
+
+			@Override
+			protected void process(List<String> phases) {
+				if (stepStream == null) {
+					descriptionLabel.setText(phases.get(phases.size() - 1));
+				}
+			}
+
+			@Override
+			protected void done() {
+				showWorkerResult(this);
+			}
+		};
+		solveWorker.addPropertyChangeListener(e -> {
+			if ("progress".equals(e.getPropertyName())) {
+				solveProgressBar.setValue((Integer) e.getNewValue());
+			}
+		});
+
+		enableSolving(true);
+		solveWorker.execute();
+		if (stepStream != null) {
+			autoDrawSubGraphs();
+		}
+	}
+
+	private void showWorkerResult(SwingWorker<Result, String> worker) {
+		enableSolving(false);
+		try {
+			showResult(worker.get());
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+			showMessageDialog(frame, "Algorithm failed:\n" + e.getCause(), "Algorithm failed", ERROR_MESSAGE);
+		}
+	}
+
+	private TraceWriter openTraceWriter() {
+		JFileChooser fileChooser = new JFileChooser();
+		fileChooser.setSelectedFile(new File("trace.gz"));
+		if (fileChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) {
+			return null;
+		}
+		try {
+			return new TraceWriter(fileChooser.getSelectedFile());
+		} catch (IOException e) {
+			e.printStackTrace();
+			showMessageDialog(frame, "Could not create trace file:\n" + e.getMessage(), "Trace not recorded", ERROR_MESSAGE);
+			return null;
+		}
+	}
+
+	//replays a trace with the same manual and auto playback as a finished run
+	private void loadTrace() {
+		JFileChooser fileChooser = new JFileChooser();
+		if (fileChooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		File file = fileChooser.getSelectedFile();
+
+		dropResult();
+		cancellationToken = new CancellationToken();
+		stepStream = autoDisplay ? new StepStream(stepStreamCapacity, cancellationToken) : null;
+		descriptionLabel.setText("Loading trace " + file.getName());
+		solveWorker = new SwingWorker<Result, String>() {
+			@Override
+			protected Result doInBackground() throws IOException {
+				try {
+					Result loaded = TraceReader.read(file);
+					if (loaded != null && stepStream != null) {
+						loaded.publishTo(stepStream);
+					}
+					return loaded;
+				} finally {
+					if (stepStream != null) {
+						stepStream.close();
+					}
+				}
+			}
+
+			@Override
+			protected void done() {
+				showWorkerResult(this);
+			}
+		};
+
+		enableSolving(true);
+		solveWorker.execute();
+		if (stepStream != null) {
+			autoDrawSubGraphs();
+		}
+	}
+
+	private void findMinimumCenters() {
+		ParameterSweep parameterSweep = new ParameterSweep(copy(graph));
+		int maxClientsPerCenter = maxClientsPerCentersValue;
+		int maxFailedCenters = maxFailedCentersValue;
+		boolean conservative = isConservative;
+		boolean failure = withFailure;
+
+		minimumCentersButton.setEnabled(false);
+		executeMainAlgorithmButton.setEnabled(false);
+		descriptionLabel.setText("Searching the minimum K for L: " + maxClientsPerCenter + ", α: " + maxFailedCenters);
+		new SwingWorker<Optional<ParameterSweep.Row>, Void>() {
+			@Override
+			protected Optional<ParameterSweep.Row> doInBackground() {
+				return parameterSweep.minimumMaxCenters(maxClientsPerCenter, maxFailedCenters, conservative, failure);
+			}
+
+			@Override
+			protected void done() {
+				minimumCentersButton.setEnabled(true);
+				executeMainAlgorithmButton.setEnabled(true);
+				try {
+					Optional<ParameterSweep.Row> minimum = get();
+					if (!minimum.isPresent()) {
+						descriptionLabel.setText("Vertices: " + graph.vertexSet().size() + ", Edges: " + graph.edgeSet().size());
+						showMessageDialog(frame, "Problem not solvable with any K for:\nL: " + maxClientsPerCenter + "\nα: " + maxFailedCenters, "Problem not solvable", WARNING_MESSAGE);
+						return;
+					}
+					int minimumCenters = minimum.get().getMaxCenters();
+					descriptionLabel.setText("Minimum K: " + minimumCenters + " at threshold " + minimum.get().getThreshold());
+					if (minimumCenters > maxCenters) {
+						showMessageDialog(frame, "Minimum K is " + minimumCenters + ", above the spinner limit " + maxCenters, "Minimum K", WARNING_MESSAGE);
+					} else {
+						maxCentersSpinner.setValue(minimumCenters);
+					}
+				} catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+					showMessageDialog(frame, "Minimum K search failed:\n" + e.getCause(), "Minimum K search failed", ERROR_MESSAGE);
+				}
+			}
+		}.execute();
+	}
+
+	//the worker is left to finish, a cancelled run returns its best known state as a CANCELLED Result
+	private void cancelMainAlgorithm() {
+		if (solveWorker != null && !solveWorker.isDone()) {
+			cancellationToken.cancel();
+			cancelButton.setEnabled(false);
+		}
+	}
+
+	private void enableSolving(boolean solving) {
+		enableOptions(!solving, autoDisplay);
+		end.setEnabled(false);
+		showPreviousPartialResult.setEnabled(false);
+		showNextPartialResult.setEnabled(false);
+		cancelButton.setEnabled(solving);
+		solveProgressBar.setValue(0);
+		solveProgressBar.setVisible(solving);
+	}
+
+	//the SolutionCache only gives out copies, the one shown here is closed here
+	private void dropResult() {
+		if (result != null) {
+			result.close();
+		}
+		result = null;
+	}
+
+	private void showResult(Result result) {
+		this.result = result;
 
         if (result != null) {
+            if (result.getStatus() != Result.Status.SOLVED) {
+				showMessageDialog(frame, "Algorithm stopped early (" + result.getStatus() + ") at threshold " + result.getThreshold() + ",\nshowing the best known state", "Algorithm stopped", WARNING_MESSAGE);
+			}
             enableOptions(false, autoDisplay);
 
+            if (stepStream != null) {
+				//auto drawing is already running, it finishes when the stream is drained
+				return;
+			}
+
             graphsToDraw = result.getGraphsToDraw();
             descriptions = result.getDescriptions();
             graphIndex = -1;
             maxGraphIndex = graphsToDraw.size() - 1;
 
-            if (autoDisplay) {
-                autoDrawSubGraphs();
-            } else {
-                manuallyDrawSubGraph(true);
-            }
+            manuallyDrawSubGraph(true);
         } else {
+			stopAutoDraw();
 			showMessageDialog(frame, "Problem not solvable with current parameters:\nK: " + maxCentersValue + "\nL: " + maxClientsPerCentersValue + "\nα: " + maxFailedCentersValue, "Problem not solvable", WARNING_MESSAGE);
             System.out.println("NOT SOLVABLE");
         }
@@ -303,12 +574,21 @@ public class Window {
 	}
 
 	private void drawPartialResult(int graphIndex) {
-		Graph<Vertex, DefaultWeightedEdge> graphToDraw = graphsToDraw.get(graphIndex);
+		drawPartialResult(graphsToDraw.get(graphIndex), descriptions.get(graphIndex), graphIndex + 1, graphsToDraw.size(), null);
+	}
+
+	//a prerendered image is swapped in as it is, without it the painter draws the graph
+	private void drawPartialResult(Graph<Vertex, DefaultWeightedEdge> graphToDraw, String description, int position, int count, BufferedImage image) {
 		int vertexCount = graphToDraw.vertexSet().size();
 		int edgeCount = graphToDraw.edgeSet().size();
-		descriptionLabel.setText(descriptions.get(graphIndex));
-		System.out.println("\t(" + (graphsToDraw.size()) + "/" + (graphIndex + 1) + ") Drawing " + descriptions.get(graphIndex) + " with " + vertexCount + " vertices and " + edgeCount + " edges...");
-		drawGraph(graphsToDraw.get(graphIndex));
+		descriptionLabel.setText(description);
+		System.out.println("\t(" + count + "/" + position + ") Drawing " + description + " with " + vertexCount + " vertices and " + edgeCount + " edges...");
+		if (image == null) {
+			drawGraph(graphToDraw);
+		} else {
+			this.graph = graphToDraw;
+			graphPainter.showFrame(graphToDraw, image);
+		}
 	}
 
 	private void endManualDraw() {
@@ -323,9 +603,12 @@ public class Window {
         isConservativeCheckBox.setEnabled(enable);
         autoDisplayCheckBox.setEnabled(enable);
         withFailureCheckBox.setEnabled(enable);
+		recordTraceCheckBox.setEnabled(enable);
+		loadTraceButton.setEnabled(enable);
 		reloadButton.setEnabled(enable);
         maxCentersLabel.setEnabled(enable);
 		maxCentersSpinner.setEnabled(enable);
+		minimumCentersButton.setEnabled(enable);
         maxClientsPerCenterLabel.setEnabled(enable);
 		maxClientsPerCenterSpinner.setEnabled(enable);
         maxFailedCentersLabel.setEnabled(enable);
@@ -342,21 +625,33 @@ public class Window {
 
 		System.out.println("\nSTART DRAWING RESULT\n");
 
+		//only the frame on screen is kept, the steps stay in the Result (which archives the older ones)
+		graphsToDraw = null;
+		descriptions = null;
+		//the steps are rendered in the background, a tick only swaps in the next image
+		framePrerenderer = new FramePrerenderer(stepStream, prerenderedFrames, graphPainter.getSize(), graphPainter.getFont(), showEdgeWeight, graphPainter.isRelevantEdgesOnly());
+		framePrerenderer.start();
+
         ActionListener drawSubGraphsListener = new ActionListener() {
-			int graphIndex = 0;
+			int drawnCount = 0;
+			Graph<Vertex, DefaultWeightedEdge> lastDrawn;
 
             @Override
             public void actionPerformed(ActionEvent e) {
                 Timer sourceTimer = (Timer) e.getSource();
-                if (graphIndex == result.getGraphsToDraw().size()) {
-                    System.out.println("\tCenters drawn: " + getCentersCount(graphsToDraw.get(graphIndex - 1)));
+                FramePrerenderer.Frame renderedFrame = framePrerenderer.poll();
+                if (renderedFrame != null) {
+					lastDrawn = renderedFrame.getGraph();
+					++drawnCount;
+					drawPartialResult(lastDrawn, renderedFrame.getDescription(), drawnCount, drawnCount, renderedFrame.getImage());
+                } else if (framePrerenderer.isFinished() && result != null) {
+                    if (lastDrawn != null) {
+						System.out.println("\tCenters drawn: " + getCentersCount(lastDrawn));
+					}
                     System.out.println("\nEND DRAWING RESULT\n");
                     sourceTimer.stop();
 					resetToOriginal(result.getOriginalGraph());
 					enableOptions(true, autoDisplay);
-                } else {
-					drawPartialResult(graphIndex);
-					++graphIndex;
                 }
             }
         };
@@ -367,34 +662,37 @@ public class Window {
 
 	private void endAutoDraw() {
 		drawSubGraphsTimer.stop();
+		framePrerenderer.stop();
 		end();
 	}
 
+	private void stopAutoDraw() {
+		if (drawSubGraphsTimer != null) {
+			drawSubGraphsTimer.stop();
+		}
+		if (framePrerenderer != null) {
+			framePrerenderer.stop();
+		}
+	}
+
 	private void end() {
-		descriptionLabel.setText(descriptions.get(descriptions.size() - 1));
+		descriptionLabel.setText(result.getDescriptions().get(result.getDescriptions().size() - 1));
 		enableOptions(true, autoDisplay);
 		Graph<Vertex, DefaultWeightedEdge> endResult = result.getGraphsToDraw().get(result.getGraphsToDraw().size() - 1);
 		drawGraph(endResult);
-		graph = copy(result.getOriginalGraph());
+		graph = share(result.getOriginalGraph());
 		System.out.println("\tCenters drawn: " + getCentersCount(endResult));
 		System.out.println("\nEND DRAWING RESULT\n");
 		end.setEnabled(false);
 	}
 
+    //the painter stays in the frame, it keeps its edge layer while the topology does not change
     private void drawGraph(Graph<Vertex, DefaultWeightedEdge> graph) {
-		frame.remove(graphPainter);
-		frame.validate();
-		frame.repaint();
-
-        this.graph = copy(graph);
-		graphPainter = new GraphPainter(this.graph, showEdgeWeight);
-
-		frame.add(graphPainter, BorderLayout.CENTER);
-		frame.validate();
-		frame.repaint();
+        this.graph = share(graph);
+		graphPainter.setGraph(this.graph, showEdgeWeight);
     }
 
     private void resetToOriginal(Graph<Vertex, DefaultWeightedEdge> graph) {
-        this.graph = copy(graph);
+        this.graph = share(graph);
     }
 }
@@ -0,0 +1,111 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.junit.Test;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.awt.Color.BLACK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AlgorithmServiceTests {
+
+/*
+Two triangles of weight 1 joined by edges of weight 5, K = 4, L = 3, α = 1.
+An incremental reSolve of the solved graph must end at the threshold of a full solve of the changed graph,
+both when it re-solves the affected components only and when it falls back to mainAlgorithm.
+With three more vertices joined by weight 5 only, Kw = 5 > K at threshold 1,
+removing one of them lets threshold 1 pass again, so lowerThresholdBounds sends reSolve back to mainAlgorithm.
+ */
+
+	private static final int MAX_CENTERS = 4;
+	private static final int MAX_CLIENTS_PER_CENTER = 3;
+	private static final int MAX_FAILED_CENTERS = 1;
+
+	@Test
+	public void reSolveMatchesFullSolveAfterRemovingAnEdgeOfGw() {
+		assertReSolveMatchesFullSolve(() -> twoTriangles(0), false, graph -> new GraphDelta().removeEdge(vertex(graph, 0), vertex(graph, 1)));
+	}
+
+	@Test
+	public void reSolveMatchesFullSolveAfterAddingAnEdgeAboveTheThreshold() {
+		assertReSolveMatchesFullSolve(() -> twoTriangles(0), false, graph -> new GraphDelta().addEdge(vertex(graph, 0), vertex(graph, 3), 7));
+	}
+
+	@Test
+	public void reSolveMatchesFullSolveAfterAddingAVertex() {
+		assertReSolveMatchesFullSolve(() -> twoTriangles(0), false, graph -> {
+			Vertex added = new Vertex(6, 300, 300, BLACK);
+			GraphDelta delta = new GraphDelta().addVertex(added);
+			graph.vertexSet().forEach(vertex -> delta.addEdge(added, vertex, 5));
+			return delta;
+		});
+	}
+
+	@Test
+	public void conservativeReSolveMatchesFullSolveAfterRemovingAnEdgeOfGw() {
+		assertReSolveMatchesFullSolve(() -> twoTriangles(0), true, graph -> new GraphDelta().removeEdge(vertex(graph, 0), vertex(graph, 1)));
+	}
+
+	@Test
+	public void reSolveMatchesFullSolveAfterRemovingAVertexThatLowersTheThreshold() {
+		Result previous = assertReSolveMatchesFullSolve(() -> twoTriangles(3), false, graph -> new GraphDelta().removeVertex(vertex(graph, 6)));
+		assertEquals(5, (int) previous.getRequiredCentersLowerBound(1));
+		assertTrue(previous.getThreshold() > 1);
+	}
+
+	//the delta is built for each graph from its own vertices, returns the Result the reSolve started from
+	private static Result assertReSolveMatchesFullSolve(Supplier<Graph<Vertex, DefaultWeightedEdge>> fixture,
+														boolean isConservative,
+														Function<Graph<Vertex, DefaultWeightedEdge>, GraphDelta> delta) {
+		Graph<Vertex, DefaultWeightedEdge> solved = fixture.get();
+		AlgorithmService algorithmService = newAlgorithmService();
+		Result previous = algorithmService.mainAlgorithm(solved, MAX_CENTERS, MAX_CLIENTS_PER_CENTER, MAX_FAILED_CENTERS, isConservative, false);
+		assertNotNull(previous);
+		Result incremental = algorithmService.reSolve(solved, delta.apply(solved), previous, MAX_CENTERS, MAX_CLIENTS_PER_CENTER, MAX_FAILED_CENTERS, isConservative);
+
+		Graph<Vertex, DefaultWeightedEdge> changed = fixture.get();
+		delta.apply(changed).applyTo(changed, Double.NEGATIVE_INFINITY);
+		Result full = newAlgorithmService().mainAlgorithm(changed, MAX_CENTERS, MAX_CLIENTS_PER_CENTER, MAX_FAILED_CENTERS, isConservative, false);
+
+		assertNotNull(full);
+		assertNotNull(incremental);
+		assertEquals(full.getStatus(), incremental.getStatus());
+		assertEquals(full.getThreshold(), incremental.getThreshold(), 0);
+		assertTrue(Utils.getCentersCount(solved) <= MAX_CENTERS);
+		assertTrue(Utils.getCentersCount(changed) <= MAX_CENTERS);
+		return previous;
+	}
+
+	private static AlgorithmService newAlgorithmService() {
+		AlgorithmService algorithmService = new AlgorithmService();
+		algorithmService.setRecording(false);
+		algorithmService.setFrontierSeed(1L);
+		return algorithmService;
+	}
+
+	//vertices 0-2 and 3-5 are the triangles, the loose vertices from 6 on are joined to everything by weight 5
+	private static Graph<Vertex, DefaultWeightedEdge> twoTriangles(int looseVertices) {
+		int vertexCount = 6 + looseVertices;
+		Graph<Vertex, DefaultWeightedEdge> graph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+		for (int id = 0; id < vertexCount; ++id) {
+			graph.addVertex(new Vertex(id, 100 * id, 100 * (id % 3), BLACK));
+		}
+		for (int first = 0; first < vertexCount; ++first) {
+			for (int second = first + 1; second < vertexCount; ++second) {
+				DefaultWeightedEdge edge = graph.addEdge(vertex(graph, first), vertex(graph, second));
+				graph.setEdgeWeight(edge, second < 6 && first / 3 == second / 3 ? 1 : 5);
+			}
+		}
+		return graph;
+	}
+
+	private static Vertex vertex(Graph<Vertex, DefaultWeightedEdge> graph, int id) {
+		return graph.vertexSet().stream().filter(vertex -> vertex.getId() == id).findAny().get();
+	}
+}
@@ -0,0 +1,112 @@
+package elte.peterpolena.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.awt.Color.BLACK;
+import static java.awt.Color.RED;
+import static java.awt.Color.YELLOW;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class TraceWriterTests {
+
+/*
+A recorded Result is written while it is recorded and read back, step by step the descriptions,
+the edge counts and the color of every vertex (by id) must match.
+The steps cover delta records, more graphs than TraceWriter.SLOTS (so slots are reused)
+and a graph whose slot was reused before it is drawn again (written in full).
+ */
+
+	@Test
+	public void readTraceMatchesRecordedSteps() throws IOException {
+		File file = File.createTempFile("trace", ".gz");
+		try {
+			Graph<Vertex, DefaultWeightedEdge> graph = completeGraph(4);
+			Result recorded = new Result();
+			try (TraceWriter traceWriter = new TraceWriter(file)) {
+				recorded.setTraceWriter(traceWriter);
+				recorded.setOriginalGraph(graph);
+				recorded.addGraphToDraw("Complete graph", graph);
+				vertex(graph, 0).setColor(RED);
+				recorded.addGraphToDraw("First center", graph);
+				recorded.addHighlightedGraphToDraw("Highlighted", graph, Collections.singleton(vertex(graph, 1)), vertex(graph, 0), YELLOW);
+				for (int edges = 1; edges <= TraceWriter.SLOTS + 2; ++edges) {
+					recorded.addGraphToDraw("Subgraph " + edges, subGraph(graph, edges));
+				}
+				vertex(graph, 1).setColor(RED);
+				recorded.addGraphToDraw("Second center", graph);
+				recorded.addGraphToDraw("Unchanged", graph);
+				recorded.setThreshold(3);
+				traceWriter.finish(recorded);
+			}
+
+			Result read = TraceReader.read(file);
+
+			assertNotNull(read);
+			assertEquals(recorded.getStatus(), read.getStatus());
+			assertEquals(recorded.getThreshold(), read.getThreshold(), 0);
+			assertEquals(colors(recorded.getOriginalGraph()), colors(read.getOriginalGraph()));
+			assertEquals(recorded.getDescriptions(), read.getDescriptions());
+			for (int i = 0; i < recorded.getGraphsToDraw().size(); ++i) {
+				Graph<Vertex, DefaultWeightedEdge> expected = recorded.getGraphsToDraw().get(i);
+				Graph<Vertex, DefaultWeightedEdge> actual = read.getGraphsToDraw().get(i);
+				String description = recorded.getDescriptions().get(i);
+				assertEquals(description, colors(expected), colors(actual));
+				assertEquals(description, expected.edgeSet().size(), actual.edgeSet().size());
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static Graph<Vertex, DefaultWeightedEdge> completeGraph(int vertexCount) {
+		Graph<Vertex, DefaultWeightedEdge> graph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+		for (int id = 0; id < vertexCount; ++id) {
+			graph.addVertex(new Vertex(id, 50 * id, 25 * id, BLACK));
+		}
+		for (int first = 0; first < vertexCount; ++first) {
+			for (int second = first + 1; second < vertexCount; ++second) {
+				DefaultWeightedEdge edge = graph.addEdge(vertex(graph, first), vertex(graph, second));
+				graph.setEdgeWeight(edge, first + second);
+			}
+		}
+		return graph;
+	}
+
+	//every vertex of the graph and the edges picked by the bits of mask, a different topology for every mask
+	private static Graph<Vertex, DefaultWeightedEdge> subGraph(Graph<Vertex, DefaultWeightedEdge> graph, int mask) {
+		Graph<Vertex, DefaultWeightedEdge> subGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+		graph.vertexSet().forEach(subGraph::addVertex);
+		List<DefaultWeightedEdge> edges = new ArrayList<>(graph.edgeSet());
+		for (int i = 0; i < edges.size(); ++i) {
+			if ((mask & (1 << i)) != 0) {
+				DefaultWeightedEdge edge = edges.get(i);
+				subGraph.addEdge(graph.getEdgeSource(edge), graph.getEdgeTarget(edge));
+				subGraph.setEdgeWeight(graph.getEdgeSource(edge), graph.getEdgeTarget(edge), graph.getEdgeWeight(edge));
+			}
+		}
+		return subGraph;
+	}
+
+	private static Map<Integer, Color> colors(Graph<Vertex, DefaultWeightedEdge> graph) {
+		Map<Integer, Color> colors = new HashMap<>();
+		graph.vertexSet().forEach(vertex -> colors.put(vertex.getId(), vertex.getColor()));
+		return colors;
+	}
+
+	private static Vertex vertex(Graph<Vertex, DefaultWeightedEdge> graph, int id) {
+		return graph.vertexSet().stream().filter(vertex -> vertex.getId() == id).findAny().get();
+	}
+}